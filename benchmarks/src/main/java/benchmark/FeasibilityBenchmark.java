@@ -0,0 +1,79 @@
+package benchmark;
+
+import ai.Clues;
+import common.Code;
+import common.Rng;
+import common.Row;
+import game.ControlInterface;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/*
+ * Clues.isFeasible() for random rows against a game with some results.
+ * Small games use the candidate set, 8x10 scores against every row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeasibilityBenchmark {
+
+    // Number of rows checked per invocation
+    private static final int ROWS = 1024;
+
+    @Param({"4x6", "5x8", "6x9", "8x10"})
+    public String size;
+
+    // Number of results in the game
+    @Param({"4"})
+    public int results;
+
+    private ControlInterface ci;
+    private Row[] rows;
+
+    @Setup
+    public void setup() {
+        ci = Games.create(size);
+        Games.playRandom(ci, results);
+        int width = ci.getSettingWidth();
+        int colQuant = ci.getSettingColQuant();
+        Rng rnd = new Rng(42);
+        rows = new Row[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            int code = 0;
+            for (int pos = 0; pos < width; pos++) {
+                code = Code.set(code, pos, rnd.nextInt(colQuant));
+            }
+            rows[i] = Code.toRow(code, width);
+        }
+        // Build the candidate set outside of the measurement
+        ci.getCandidates();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int isFeasible() {
+        int count = 0;
+        for (int i = 0; i < ROWS; i++) {
+            if (Clues.isFeasible(ci, rows[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
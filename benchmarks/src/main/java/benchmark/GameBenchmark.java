@@ -0,0 +1,83 @@
+package benchmark;
+
+import ai.Bruteforce;
+import ai.GeneticSolver;
+import ai.IslandSolver;
+import ai.KnuthSolver;
+import ai.RandomGuesses;
+import ai.SolvingAlgorithm;
+import common.Rng;
+import game.ControlInterface;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+
+/*
+ * End-to-end games per second for every SolvingAlgorithm.
+ * Every invocation plays one full game against a new secret code.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameBenchmark {
+
+    @Param({"Bruteforce", "GeneticSolver", "IslandSolver", "KnuthSolver",
+            "RandomGuesses"})
+    public String solver;
+
+    @Param({"4x6", "5x8"})
+    public String size;
+
+    private ControlInterface ci;
+    private Rng rnd;
+
+    @Setup
+    public void setup() {
+        ci = Games.create(size);
+        rnd = new Rng(11);
+    }
+
+    // Play a game, return the number of tries
+    @Benchmark
+    public int playGame() {
+        ci.newGame(rnd);
+        SolvingAlgorithm algorithm = createSolver();
+        while (algorithm.makeGuess() == 0 && ci.getGameEnded() == false) {
+            // play until the game ended
+        }
+        return ci.getActiveRowNumber();
+    }
+
+    // Creates the solver for the current game
+    private SolvingAlgorithm createSolver() {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        switch (solver) {
+            case "Bruteforce":
+                return new Bruteforce(ci);
+            case "GeneticSolver":
+                return new GeneticSolver(ci, pool, rnd.split());
+            case "IslandSolver":
+                return new IslandSolver(ci, Math.max(2, pool.getParallelism()),
+                        pool, rnd.split());
+            case "KnuthSolver":
+                return new KnuthSolver(ci);
+            default:
+                return new RandomGuesses(ci, rnd.split());
+        }
+    }
+}
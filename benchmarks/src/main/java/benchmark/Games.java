@@ -0,0 +1,46 @@
+package benchmark;
+
+import common.Rng;
+import game.ControlInterface;
+
+
+/*
+ * Helpers to set up the games of the benchmarks.
+ */
+final class Games {
+
+    private Games() {
+    }
+
+    /*
+     * Creates a control interface for a game size
+     * A global seed is set, so the secret codes are generated locally
+     * and every run gets the same games.
+     * size - the game size as "<width>x<colors>", e.g. "4x6"
+     * return: the control interface with a new game of that size
+     */
+    static ControlInterface create(String size) {
+        Rng.setSeed(42);
+        int x = size.indexOf('x');
+        int width = Integer.parseInt(size.substring(0, x));
+        int colQuant = Integer.parseInt(size.substring(x + 1));
+        ControlInterface ci = new ControlInterface();
+        ci.setSettingDoubleCols(true);
+        ci.setSettingColQuant(colQuant);
+        ci.setSettingWidth(width);
+        ci.newGame(new Rng(7));
+        return ci;
+    }
+
+    /*
+     * Plays random guesses, so a solver has some results to work with
+     * ci - the control interface of the game
+     * rows - the number of guesses
+     */
+    static void playRandom(ControlInterface ci, int rows) {
+        ai.RandomGuesses random = new ai.RandomGuesses(ci, new Rng(1));
+        for (int i = 0; i < rows && ci.getGameEnded() == false; i++) {
+            random.makeGuess();
+        }
+    }
+}
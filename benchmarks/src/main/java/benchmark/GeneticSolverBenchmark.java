@@ -0,0 +1,55 @@
+package benchmark;
+
+import ai.GeneticSolver;
+import common.Rng;
+import common.Row;
+import game.ControlInterface;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+
+/*
+ * GeneticSolver.generateGuess() for a game with some results
+ * at several widths and numbers of colors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneticSolverBenchmark {
+
+    @Param({"4x6", "5x8", "6x9", "8x10"})
+    public String size;
+
+    // Number of results in the game
+    @Param({"1", "3"})
+    public int results;
+
+    private GeneticSolver solver;
+
+    @Setup
+    public void setup() {
+        ControlInterface ci = Games.create(size);
+        Games.playRandom(ci, results);
+        solver = new GeneticSolver(ci, ForkJoinPool.commonPool(), new Rng(3));
+    }
+
+    @Benchmark
+    public Row generateGuess() {
+        return solver.generateGuess();
+    }
+}
@@ -0,0 +1,87 @@
+package benchmark;
+
+import common.Code;
+import common.Rng;
+import common.Row;
+import common.Score;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/*
+ * The scoring kernel (Score.compare) as used by the solvers on packed codes,
+ * and the scoring of Rows as done by Game.checkActiveRow().
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoreBenchmark {
+
+    // Number of code pairs scored per invocation
+    private static final int CODES = 1024;
+
+    @Param({"4", "6", "8"})
+    public int width;
+
+    @Param({"6", "10"})
+    public int colQuant;
+
+    private int[] codes;
+    private Row[] rows;
+
+    @Setup
+    public void setup() {
+        Rng rnd = new Rng(42);
+        codes = new int[CODES];
+        rows = new Row[CODES];
+        for (int i = 0; i < CODES; i++) {
+            int code = 0;
+            for (int pos = 0; pos < width; pos++) {
+                code = Code.set(code, pos, rnd.nextInt(colQuant));
+            }
+            codes[i] = code;
+            rows[i] = Code.toRow(code, width);
+        }
+    }
+
+    // Score packed codes
+    @Benchmark
+    @OperationsPerInvocation(CODES)
+    public int compare() {
+        int sum = 0;
+        for (int i = 0; i < CODES; i++) {
+            sum += Score.compare(codes[i], codes[(i + 1) & (CODES - 1)], width);
+        }
+        return sum;
+    }
+
+    // Score Rows and build the result Row like Game.checkActiveRow()
+    @Benchmark
+    @OperationsPerInvocation(CODES)
+    public int compareRows() {
+        int sum = 0;
+        for (int i = 0; i < CODES; i++) {
+            Row guess = rows[i];
+            Row secret = rows[(i + 1) & (CODES - 1)];
+            Row result = Code.toResultRow(Score.compare(Code.of(guess),
+                    Code.of(secret), width), width);
+            sum += result.width();
+        }
+        return sum;
+    }
+}
@@ -3,21 +3,32 @@ package ai;
 import common.*;
 import game.ControlInterface;
 
+import java.time.Duration;
+
 
 /*
  * A solving algorithm using the Brute-force search technique
  * See http://en.wikipedia.org/wiki/Brute-force_search
  * Brute-force search algorithm on Wikipedia.
+ *
+ * The codes are enumerated in index order (see Code.index(int, int, int)),
+ * i.e. as mixed-radix numbers with position 0 as the lowest digit.
+ * Codes that are not consistent with the previous results are skipped, so
+ * every guess could be the secret code. If duplicate colors are not allowed,
+ * only codes with different colors are generated.
+ *
+ * The enumeration is iterative and continues where it stopped with the
+ * next guess. Codes skipped once can't become consistent again.
  */
 
 public class Bruteforce implements SolvingAlgorithm {
 
+    // Number of codes checked between two checks of the time budget
+    private final int CHECK_INTERVAL = 4096;
+
     // The ControlInterface to work with
     private ControlInterface ci;
 
-    // Holding the guess
-    Row guess;
-
     // Width of the row
     private int width;
 
@@ -27,21 +38,31 @@ public class Bruteforce implements SolvingAlgorithm {
     // Allowance of duplicates colors
     private boolean doubleCols;
 
-    // Arrays of colors holding all colors (allCols)
-    // and the colors used in the running game (allowedCols)
-    Color[] allowedCols;
-    Color[] allCols;
+    // The current code of the enumeration, the last guess if it was played
+    private int code;
+
+    // False until the first code was generated
+    private boolean started = false;
+
+    // True if all codes were enumerated
+    private boolean exhausted = false;
+
+    // The packed guesses and results of the game rows
+    private int[] guesses;
+    private int[] results;
+
+    // Number of game rows in guesses and results
+    private int rows = 0;
 
     // Initialize the AI with settings from the Mastermind engine
+    // ci - a control interface the AI will use to interact with a game
     public Bruteforce(ControlInterface ci){
+        this.ci = ci;
         width = ci.getSettingWidth();
         colQuant = ci.getSettingColQuant();
         doubleCols = ci.getSettingDoubleCols();
-        guess = new Row(width);
-        // Prepare values to fit colorQuant-rule
-        allowedCols = new Color[colQuant];
-        allCols = Color.values();
-        System.arraycopy(allCols, 0, allowedCols, 0, colQuant);
+        guesses = new int[ci.getSettingMaxTries()];
+        results = new int[ci.getSettingMaxTries()];
     }
 
     /*
@@ -63,62 +84,175 @@ public class Bruteforce implements SolvingAlgorithm {
     }
 
     /*
-     * Generate a guess by "incrementing" the previous guess.
-     * If no previous guess available generate "lowest" possible guess.
-     * Every color is given a value what makes it possible to generate
-     * a "lowest" guess and to "increment" a guess.
+     * Generate the next code that is consistent with the previous results.
+     * The first guess is the "lowest" possible code.
      * Returns the generated guess
      */
     public Row generateGuess(){
-        // First try
-        int col = 0;
-        if(ci.getActiveRowNumber() == 0){
-            Debug.dbgPrint("First try.");
-            // Fill guess with the first color(s)
-            for(int i = 0; i < width; i++){
-                guess.setColAtPos(i, allowedCols[col]);
-                col = doubleCols ? 0 : col++;
-            }
-            return guess;
+        return generateGuess(null).getRow();
+    }
+
+    /*
+     * Generate the next code that is consistent with the previous results
+     * within a time budget. If the budget expires, the current code of the
+     * enumeration is returned and the enumeration continues from there
+     * with the next call.
+     * budget - the max. time to spend, null for no limit
+     * return: the guess, consistent unless the budget expired
+     */
+    public Guess generateGuess(Duration budget){
+        return generateGuess(budget, null);
+    }
+
+    /*
+     * Generate the next consistent code within a time budget that can be
+     * cancelled. The token is checked like the budget, every CHECK_INTERVAL
+     * codes, and the enumeration continues from there with the next call.
+     * budget - the max. time to spend, null for no limit
+     * token - the cancellation token, null if the guess can't be cancelled
+     * return: the guess, consistent unless the search was stopped
+     */
+    public Guess generateGuess(Duration budget, CancellationToken token){
+        Deadline deadline = new Deadline(budget, token);
+        updateResults();
+        if (started == false) {
+            code = doubleCols ? 0 : firstPermutation();
+            started = true;
         }
-        Debug.dbgPrint("Not first try.");
-        // Later try
-        boolean carry = true;
-        Color[] tmp = guess.getColors();
-        int index;
-        for (int i = tmp.length-1; i >= 0; i--){
-            if(!carry){
-                break;
+        // Without the set (yet) the codes are checked against all results
+        CandidateSet candidates =
+                ci.getCandidates(deadline.share(0.5)::isExpired);
+        int checked = 0;
+        while (exhausted == false) {
+            if (isConsistent(code, candidates)) {
+                return new Guess(Code.toRow(code, width), true);
             }
-            index = findColorIndex(allowedCols,tmp[i]);
-            if (++index < allowedCols.length){
-                tmp[i] = allowedCols[index];
-                carry = false;
+            next();
+            if (++checked == CHECK_INTERVAL) {
+                if (deadline.isExpired()) {
+                    Debug.dbgPrint("AI: Time budget expired");
+                    return new Guess(Code.toRow(code, width), false);
+                }
+                checked = 0;
             }
-            else {
-                 tmp[i] = allowedCols[0];
-                 carry = true;
+        }
+        Debug.errorPrint("AI: No code is consistent with the results");
+        return new Guess(Code.toRow(code, width), false);
+    }
+
+    /*
+     * Read the game rows played since the last call
+     * If the game has fewer rows or other rows than before (a new or loaded
+     * game), the enumeration starts over.
+     */
+    private void updateResults(){
+        int active = ci.getActiveRowNumber();
+        if (isSameGame(active) == false) {
+            rows = 0;
+            started = false;
+            exhausted = false;
+        }
+        for (int i = rows; i < active; i++) {
+            guesses[i] = Code.of(ci.getGameFieldRow(i));
+            results[i] = Code.feedback(ci.getResultRow(i));
+        }
+        rows = active;
+    }
+
+    /*
+     * Checks if the rows read so far are still the first rows of the game
+     * active - the number of rows of the game
+     * return: false if the game was replaced (e.g. a new or loaded game)
+     */
+    private boolean isSameGame(int active){
+        if (active < rows) {
+            return false;
+        }
+        for (int i = 0; i < rows; i++) {
+            if (guesses[i] != Code.of(ci.getGameFieldRow(i))
+                    || results[i] != Code.feedback(ci.getResultRow(i))) {
+                return false;
             }
         }
-        if(!doubleCols && guess.containsDoubleCols()){
-            return generateGuess();
+        return true;
+    }
+
+    /*
+     * Checks a code against all previous results
+     * code - the packed code
+     * candidates - the candidate set of the game, null to score the code
+     * return: true if the code could be the secret code, false otherwise
+     */
+    private boolean isConsistent(int code, CandidateSet candidates){
+        if (candidates != null) {
+            return candidates.contains(code);
         }
-        return guess;
+        for (int i = 0; i < rows; i++) {
+            if (Score.compare(guesses[i], code, width) != results[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Step to the next code of the enumeration, sets exhausted after the last one
+    private void next(){
+        int next = doubleCols ? Code.next(code, width, colQuant)
+                : nextPermutation(code);
+        // Code.next() wraps around to 0, nextPermutation() returns -1
+        if (next <= 0) {
+            exhausted = true;
+            return;
+        }
+        code = next;
+    }
+
+    /*
+     * The lowest code with different colors
+     * The highest position gets color 0, the next lower one color 1 and so on.
+     * return: the packed code
+     */
+    int firstPermutation(){
+        int first = 0;
+        for (int i = 0; i < width; i++) {
+            first = Code.set(first, width - 1 - i, i);
+        }
+        return first;
     }
 
     /*
-     * Search for a color in an array and return its index
-     * ca - the array within we want to do a search
-     * c - the color to be found
-     * returns: index of the color, "-1" if not found
+     * The next code with different colors in index order
+     * Like an odometer: the lowest position that can take a higher color not
+     * used by the higher positions is increased, the positions below it get
+     * the lowest free colors, the highest free color at position 0.
+     * code - a packed code with different colors
+     * return: the next packed code, -1 after the last one
      */
-    private int findColorIndex(Color[] ca, Color c){
-        int i = 0;
-        while(i < ca.length){
-            if(ca[i] == c){
-                return i;
+    int nextPermutation(int code){
+        // Bit mask of the colors used by the positions above pos
+        int used = 0;
+        for (int i = 0; i < width; i++) {
+            used |= 1 << Code.get(code, i);
+        }
+        for (int pos = 0; pos < width; pos++) {
+            int col = Code.get(code, pos);
+            used &= ~(1 << col);
+            for (int c = col + 1; c < colQuant; c++) {
+                if ((used & (1 << c)) == 0) {
+                    code = Code.set(code, pos, c);
+                    used |= 1 << c;
+                    // Fill the lower positions with the lowest free colors
+                    int free = 0;
+                    for (int i = pos - 1; i >= 0; i--) {
+                        while ((used & (1 << free)) != 0) {
+                            free++;
+                        }
+                        code = Code.set(code, i, free);
+                        used |= 1 << free;
+                    }
+                    return code;
+                }
             }
-            i++;
         }
         return -1;
     }
@@ -0,0 +1,31 @@
+package ai;
+
+
+/*
+ * Stops a running guess generation from another thread.
+ * See SolvingAlgorithm.generateGuess(Duration, CancellationToken).
+ *
+ * The solvers check the token together with their time budget, i.e. once
+ * per generation or every few thousand codes, and return early once it is
+ * cancelled. The guess returned then should be discarded.
+ * A token can't be reset, use a new one for the next guess.
+ */
+
+public final class CancellationToken {
+
+    // Set once by cancel(), read by the solving threads
+    private volatile boolean cancelled = false;
+
+    // Request the guess generation to stop
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /*
+     * Checks if cancel() was called
+     * return: true if the guess generation should stop, false otherwise
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -3,6 +3,8 @@ package ai;
 import common.*;
 import game.ControlInterface;
 
+import java.util.function.BooleanSupplier;
+
 
 /*
  * Checks if the guess is valid or makes no sense in context
@@ -16,6 +18,11 @@ import game.ControlInterface;
  * X is the number of exact matches. Y is the number of guesses which are
  * the right color but in the wrong position.
  *
+ * If the candidate set of the game is ready, this is a lookup in the set,
+ * see ControlInterface.getCandidates(BooleanSupplier). Otherwise the guess
+ * is scored against the played rows, so a check never waits for the set
+ * to be built.
+ *
  * row - the guess to be checked.
  * ci - the control interface of a game which you want
  * to use to check if a guess is feasible.
@@ -25,57 +32,28 @@ import game.ControlInterface;
 public class Clues {
 
     public static boolean isFeasible(ControlInterface ci, Row row) {
-        for (int i = 0; i < ci.getActiveRowNumber(); i++) {
-            int[] result = compare(row,
-                    ci.getGameFieldRow(i));
-
-            if (result[0] != ci.getResultRow(i)
-                    .containsCol(Color.Black) ||
-                    result[1] != ci.getResultRow(i)
-                            .containsCol(Color.White)) {
-                return false;
-            }
-        }
-        return true;
+        return isFeasible(ci, row, () -> true);
     }
 
     /*
-     * compare - creates and returns array where
-     * result[0] - number of blacks (matching colors at the matching positions),
-     * result[1] - matching colors at the different positions
-     *
-     * Compare number of blacks and number of whites for a[i] row and b[i]
-     * The difference is an indication of the quality of the a[i] row
-     * if these differences are zero for each previous guess then the code is eligible.
+     * Check a guess, building the candidate set until a stop condition
+     * stop - returns true if the set shouldn't be built any further
      */
-    private static int[] compare(Row a, Row b) {
-        int[] result = {0, 0};
-        Color[] code = new Color[a.width()];
-        Color[] secret = new Color[code.length];
-        // Create real copy
-        System.arraycopy(a.getColors(), 0, code, 0, code.length);
-        System.arraycopy(b.getColors(), 0, secret, 0, code.length);
-
-        for (int i = 0; i < code.length; i++) {
-            if (code[i] == secret[i]) {
-                result[0]++;
-                secret[i] = null;
-                code[i] = null;
-            }
+    static boolean isFeasible(ControlInterface ci, Row row,
+                              BooleanSupplier stop) {
+        int code = Code.of(row);
+        CandidateSet candidates = ci.getCandidates(stop);
+        if (candidates != null) {
+            return candidates.contains(code);
         }
+        for (int i = 0; i < ci.getActiveRowNumber(); i++) {
+            int result = Score.compare(code, Code.of(ci.getGameFieldRow(i)),
+                    row.width());
 
-        outer:
-        for (int i = 0; i < code.length; i++) {
-            if (code[i] != null) {
-                for (int j = 0; j < code.length; j++) {
-                    if (code[i] == secret[j]) {
-                        result[1]++;
-                        secret[j] = null;
-                        continue outer;
-                    }
-                }
+            if (result != Code.feedback(ci.getResultRow(i))) {
+                return false;
             }
         }
-        return result;
+        return true;
     }
 }
@@ -0,0 +1,59 @@
+package ai;
+
+import java.util.Arrays;
+
+
+/*
+ * A set of packed codes (see common.Code) using open addressing.
+ * Used to find duplicate codes within a population in linear time.
+ *
+ * Every slot is marked with the stamp of the round it was filled in.
+ * clear() just starts a new round, so the set can be reused every
+ * generation without clearing (or allocating) the arrays.
+ */
+final class CodeHashSet {
+
+    private final int[] keys;
+    private final int[] stamps;
+    private final int mask;
+    private int stamp = 1;
+
+    /*
+     * Creates a set for a max. number of codes
+     * capacity - the max. number of codes, the table is at most half full
+     */
+    CodeHashSet(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1) << 1;
+        keys = new int[size];
+        stamps = new int[size];
+        mask = size - 1;
+    }
+
+    // Remove all codes
+    void clear() {
+        stamp++;
+        if (stamp == 0) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+
+    /*
+     * Add a code to the set
+     * code - the packed code
+     * return: true if the code was added, false if it was already in the set
+     */
+    boolean add(int code) {
+        int h = code * 0x9E3779B9;
+        int i = (h ^ (h >>> 16)) & mask;
+        while (stamps[i] == stamp) {
+            if (keys[i] == code) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        stamps[i] = stamp;
+        keys[i] = code;
+        return true;
+    }
+}
@@ -0,0 +1,81 @@
+package ai;
+
+import java.time.Duration;
+
+
+/*
+ * The end of a time budget, based on System.nanoTime().
+ * A deadline created without a budget (null) never expires.
+ * A deadline with a cancellation token also expires when the token is
+ * cancelled, so the solvers check both at the same places.
+ */
+final class Deadline {
+
+    // Budgets longer than this are treated as unbounded (about 146 years)
+    private static final long MAX_NANOS = Long.MAX_VALUE / 2;
+
+    // End of the budget, see System.nanoTime()
+    private final long end;
+
+    // False if the deadline never expires
+    private final boolean bounded;
+
+    // Ends the deadline early, null if there is none
+    private final CancellationToken token;
+
+    /*
+     * Starts a deadline now
+     * budget - the time budget, null for no limit
+     */
+    Deadline(Duration budget) {
+        this(budget, null);
+    }
+
+    /*
+     * Starts a deadline now that can be cancelled
+     * budget - the time budget, null for no limit
+     * token - the cancellation token, null if there is none
+     */
+    Deadline(Duration budget, CancellationToken token) {
+        this.token = token;
+        long nanos = MAX_NANOS;
+        if (budget != null && budget.compareTo(Duration.ofNanos(MAX_NANOS)) < 0) {
+            nanos = Math.max(budget.toNanos(), 0);
+        }
+        bounded = nanos < MAX_NANOS;
+        end = System.nanoTime() + nanos;
+    }
+
+    private Deadline(long end, boolean bounded, CancellationToken token) {
+        this.end = end;
+        this.bounded = bounded;
+        this.token = token;
+    }
+
+    /*
+     * A deadline that ends after a share of the remaining budget
+     * It has the same cancellation token, an unbounded deadline stays
+     * unbounded.
+     * fraction - the share of the remaining budget, between 0 and 1
+     * return: the earlier deadline
+     */
+    Deadline share(double fraction) {
+        if (bounded == false) {
+            return this;
+        }
+        long now = System.nanoTime();
+        long left = Math.max(end - now, 0);
+        return new Deadline(now + (long) (left * fraction), true, token);
+    }
+
+    /*
+     * Checks if the budget is used up or the token was cancelled
+     * return: true if the deadline has passed, false otherwise
+     */
+    boolean isExpired() {
+        if (token != null && token.isCancelled() == true) {
+            return true;
+        }
+        return bounded == true && System.nanoTime() - end >= 0;
+    }
+}
@@ -0,0 +1,150 @@
+package ai;
+
+import common.Code;
+import common.Debug;
+import common.Score;
+
+import java.util.stream.IntStream;
+
+
+/*
+ * A precomputed table of the feedback for every pair of codes.
+ * For small code spaces (e.g. the default settings: width 4, 8 colors,
+ * 4096 codes) the feedback of all guess/secret pairs fits into memory,
+ * one byte per pair. Solvers can then score candidates by a table lookup
+ * instead of calling Score.compare().
+ *
+ * The codes of the table are numbered by a dense index. If duplicate colors
+ * are allowed the dense index is the index of Code.index(int, int, int),
+ * otherwise only the codes without duplicate colors are part of the table.
+ *
+ * The table is built lazily and only the most recently used one is kept.
+ * If the code space is too large get() returns null and the caller has to
+ * fall back to computed scoring.
+ */
+public final class FeedbackTable {
+
+    // Max. number of entries (bytes) of a table: 16 MB
+    private static final long MAX_ENTRIES = 1L << 24;
+
+    // Max. size of the full code space that is mapped to dense indices
+    private static final long MAX_SPACE = 1L << 20;
+
+    // The most recently used table
+    private static FeedbackTable cached;
+
+    private final int width;
+    private final int colQuant;
+    private final boolean doubleCols;
+
+    // Packed codes by dense index
+    private final int[] codes;
+
+    // Dense index by code space index, null if both are the same
+    private final int[] dense;
+
+    // Packed feedback by [guess * size + secret]
+    private final byte[] table;
+
+    /*
+     * Get the table for the given settings. Builds the table if needed.
+     * width - the width of a code
+     * colQuant - the quantity of colors
+     * doubleCols - allowance of duplicate colors
+     * return: the table, null if the code space is too large
+     */
+    public static synchronized FeedbackTable get(int width, int colQuant,
+                                                 boolean doubleCols) {
+        if (cached != null && cached.width == width
+                && cached.colQuant == colQuant
+                && cached.doubleCols == doubleCols) {
+            return cached;
+        }
+        long space = Code.spaceSize(width, colQuant);
+        long size = doubleCols ? space : permutations(width, colQuant);
+        if (space > MAX_SPACE || size * size > MAX_ENTRIES) {
+            Debug.dbgPrint("FeedbackTable: code space too large (" + size + ")");
+            return null;
+        }
+        cached = new FeedbackTable(width, colQuant, doubleCols, (int) space,
+                (int) size);
+        return cached;
+    }
+
+    // Number of codes without duplicate colors
+    private static long permutations(int width, int colQuant) {
+        long size = 1;
+        for (int i = 0; i < width; i++) {
+            size *= colQuant - i;
+        }
+        return Math.max(size, 0);
+    }
+
+    private FeedbackTable(int width, int colQuant, boolean doubleCols,
+                          int space, int size) {
+        this.width = width;
+        this.colQuant = colQuant;
+        this.doubleCols = doubleCols;
+        codes = new int[size];
+        if (doubleCols) {
+            dense = null;
+            for (int i = 0; i < size; i++) {
+                codes[i] = Code.fromIndex(i, width, colQuant);
+            }
+        } else {
+            dense = new int[space];
+            int n = 0;
+            for (int i = 0; i < space; i++) {
+                int code = Code.fromIndex(i, width, colQuant);
+                if (Code.containsDoubleCols(code, width)) {
+                    dense[i] = -1;
+                } else {
+                    dense[i] = n;
+                    codes[n++] = code;
+                }
+            }
+        }
+        table = new byte[size * size];
+        // Every row of the table is independent
+        IntStream.range(0, size).parallel().forEach(i -> {
+            int offset = i * size;
+            for (int j = 0; j < size; j++) {
+                table[offset + j] = (byte) Score.compare(codes[i], codes[j], width);
+            }
+        });
+        Debug.dbgPrint("FeedbackTable: built " + size + "x" + size);
+    }
+
+    // Number of codes in the table
+    public int size() {
+        return codes.length;
+    }
+
+    // The packed code at a dense index
+    public int code(int index) {
+        return codes[index];
+    }
+
+    /*
+     * The dense index of a packed code
+     * code - the packed code
+     * return: the dense index, -1 if the code is not part of the table
+     */
+    public int indexOf(int code) {
+        int index = Code.index(code, width, colQuant);
+        if (index < 0 || dense == null) {
+            return index;
+        }
+        return dense[index];
+    }
+
+    /*
+     * The packed feedback of two codes
+     * guess - dense index of the guess
+     * secret - dense index of the secret
+     * return: the packed feedback, see Score.compare(int, int, int)
+     */
+    public int feedback(int guess, int secret) {
+        return table[guess * codes.length + secret] & 0xFF;
+    }
+}
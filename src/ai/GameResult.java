@@ -0,0 +1,67 @@
+package ai;
+
+
+/*
+ * The result of one game of a simulation, see Simulation.
+ */
+public final class GameResult {
+
+    private final int game;
+    private final int tries;
+    private final boolean won;
+    private final long nanos;
+    private final long allocatedBytes;
+
+    /*
+     * Creates a result
+     * game - the number of the game, between 0 and the number of games - 1
+     * tries - the number of guesses
+     * won - true if the code was broken, false otherwise
+     * nanos - the time of the game (solver included) in nanoseconds
+     * allocatedBytes - the bytes allocated by the thread of the game, -1 if unknown
+     */
+    public GameResult(int game, int tries, boolean won, long nanos,
+                      long allocatedBytes) {
+        this.game = game;
+        this.tries = tries;
+        this.won = won;
+        this.nanos = nanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    // The number of the game, between 0 and the number of games - 1
+    public int getGame() {
+        return game;
+    }
+
+    // The number of guesses
+    public int getTries() {
+        return tries;
+    }
+
+    // True if the code was broken, false otherwise
+    public boolean isWon() {
+        return won;
+    }
+
+    // The time of the game in nanoseconds
+    public long getNanos() {
+        return nanos;
+    }
+
+    /*
+     * The bytes allocated by the thread that played the game
+     * Work the solver forks to other threads (e.g. a fork-join pool)
+     * is not included.
+     * return: the number of bytes, -1 if the JVM can't measure it
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return game + " " + (won ? "won" : "lost") + " " + tries + " "
+                + nanos + " " + allocatedBytes;
+    }
+}
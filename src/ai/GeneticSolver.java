@@ -1,11 +1,19 @@
 package ai;
 
+import common.CandidateSet;
+import common.Code;
 import common.Color;
 import common.Debug;
+import common.Rng;
 import common.Row;
+import common.Score;
 import game.ControlInterface;
 
-import java.util.ArrayList;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 
 /*
@@ -15,18 +23,30 @@ import java.util.ArrayList;
  * Efficient solutions for Mastermind using genetic algorithms
  * For more information on genetic algorithms see:
  * http://en.wikipedia.org/wiki/Genetic_algorithm
+ *
+ * The population is split into chunks which are initialized, evaluated and
+ * evolved in parallel on a fork-join pool. Every chunk has its own random
+ * number generator, so a seeded Rng gives reproducible results.
+ *
+ * The population size, number of generations and number of feasible codes
+ * are taken from the settings. In adaptive mode the population is sized for
+ * every guess and the search stops when the time budget expires.
  */
 
 public class GeneticSolver implements SolvingAlgorithm {
 
-    // Size of the population within a generation
-    private final int POPULATION_SIZE = 2000;
+    /*
+     * Size of the population within a generation
+     * Taken from the settings, or derived from the code space in adaptive mode.
+     * see adaptPopulationSize()
+     */
+    private int populationSize = 0;
 
     /*
      * Number of generations. If no feasible code was found after all generations,
      * a new guess with new generations and populations will be made
      */
-    private final int GENERATION_SIZE = 500;
+    private int generationSize;
 
     /*
      * Max. amount of feasible codes (good guesses)
@@ -34,42 +54,239 @@ public class GeneticSolver implements SolvingAlgorithm {
      * take a turn with one randomly chosen feasible code.
      * see #addToFeasibleCodes()
      */
+    private int feasibleCodesMax;
+
+    // Number of parents, the best fifth of the population
+    private int parentsSize;
+
+    // Adaptive population size and time budget, see ControlInterface
+    private boolean adaptive;
+
+    // Time budget for one guess in adaptive mode, in nanoseconds
+    private long timeBudget;
+
+    // End of the time budget of the current guess
+    private Deadline deadline;
+
+    // The fittest code of all generations of the current guess
+    private int bestCode;
+    private int bestFitness;
+
+    // Generation number and state of the running generation loop, see evolve(int)
+    private int genNumber;
+    private boolean doCalc;
+
+    // Number of generations created for the current guess, over all populations
+    private int generation;
+
+    // Receives the progress of the search, null if there is none
+    private ProgressListener listener;
+
+    // Number of islands sharing the population size, see IslandSolver
+    private int islands = 1;
+
+    // Max. number of random codes tried to replace a duplicate
+    private final int DOUBLE_RETRIES = 10;
+
+    // Number of codes in a chunk of the population (must be even)
+    private final int CHUNK_SIZE = 64;
+
+    // Bounds of the population size in adaptive mode
+    private final int ADAPTIVE_MIN_SIZE = 64;
+    private final int ADAPTIVE_MAX_SIZE = 20000;
 
-    private final int FEASIBLE_CODES_MAX = 1;
     private ControlInterface ci;
     private int width;
     private int colQuant;
     private boolean doubleCols;
-    private Row[] population = new Row[POPULATION_SIZE];
-    private int[] fitness = new int[POPULATION_SIZE];
+    private int[] population;
+
+    // The next generation, swapped with population, see evolvePopulation()
+    private int[] nextPopulation;
+    private int[] fitness;
+    private int[] guesses;
+    private int[] guessIndices;
     private int[] blacks;
     private int[] whites;
-    private ArrayList<Row> feasibleCodes = new ArrayList<Row>();
-    private int parentPos = 0;
+    private boolean[] feasible;
+
+    // The codes of the best fifth of the population, best first
+    private int[] parents;
+
+    // Codes of the new population, see doubleToRnd(int[])
+    private CodeHashSet seen;
+
+    // Counters for selectParents(), indexed by fitness value
+    private int[] fitnessCount = new int[64];
+
+    // The feasible codes found so far, the first feasibleCount are valid
+    private int[] feasibleCodes;
+    private int feasibleCount = 0;
+
+    // Number of game rows the guess is based on
+    private int rows;
+
+    // The fork-join pool the chunks are processed on
+    private ForkJoinPool pool;
+
+    // Random number generator for the sequential parts
+    private Rng rnd;
+
+    // One worker per chunk of the population
+    private Worker[] workers;
+
+    /*
+     * The parallel steps of a generation. The task trees are built once
+     * and reinitialized for every run, so no tasks are allocated per generation.
+     */
+    private ChunkAction initAction;
+    private ChunkAction fitnessAction;
+    private ChunkAction evolveAction;
+    private ChunkAction feasibleAction;
+
+    // Feedback lookup table, null if the code space is too large
+    private FeedbackTable table;
+
+    // Candidates of the game, null if the code space is too large
+    private CandidateSet candidates;
 
     // Initialize the AI with settings from the Mastermind engine
     // ci - a control interface the AI will use to interact with a game
     public GeneticSolver(ControlInterface ci) {
+        this(ci, ForkJoinPool.commonPool(), Rng.create());
+    }
+
+    /*
+     * Initialize the AI with settings from the Mastermind engine
+     * ci - a control interface the AI will use to interact with a game
+     * pool - the fork-join pool the population is processed on
+     * rnd - the random number generator, split for every chunk
+     */
+    public GeneticSolver(ControlInterface ci, ForkJoinPool pool, Rng rnd) {
+        this(ci, pool, rnd, 1);
+    }
+
+    /*
+     * Initialize the AI as one island of an IslandSolver
+     * The population size of the settings is shared by all islands.
+     * ci - a control interface the AI will use to interact with a game
+     * pool - the fork-join pool the population is processed on
+     * rnd - the random number generator, split for every chunk
+     * islands - the number of islands
+     */
+    GeneticSolver(ControlInterface ci, ForkJoinPool pool, Rng rnd, int islands) {
         this.ci = ci;
+        this.islands = islands;
+        this.pool = pool;
+        this.rnd = rnd;
         width = ci.getSettingWidth();
         colQuant = ci.getSettingColQuant();
         doubleCols = ci.getSettingDoubleCols();
-        population = new Row[POPULATION_SIZE];
-        fitness = new int[POPULATION_SIZE];
+        generationSize = ci.getSettingAiGenerations();
+        feasibleCodesMax = ci.getSettingAiFeasibleCodesMax();
+        adaptive = ci.getSettingAiAdaptive();
+        timeBudget = ci.getSettingAiTimeBudget() * 1000000L;
+        feasibleCodes = new int[feasibleCodesMax];
+        guesses = new int[ci.getSettingMaxTries()];
+        guessIndices = new int[ci.getSettingMaxTries()];
         blacks = new int[ci.getSettingMaxTries()];
         whites = new int[ci.getSettingMaxTries()];
+        table = FeedbackTable.get(width, colQuant, doubleCols);
+        resize(islandSize(ci.getSettingAiPopulationSize()));
         initResults();
     }
 
-    // Initialize the arrays "blacks" and "whites" with values from the GameField
-    // The arrays "blacks" and "whites" are needed to accelerate the processing
+    /*
+     * Set the population size
+     * Allocates the population arrays and the chunks for the new size.
+     * Nothing is done if the size did not change.
+     * size - the number of codes in a generation (even)
+     */
+    private void resize(int size) {
+        if (size == populationSize) {
+            return;
+        }
+        populationSize = size;
+        parentsSize = size / 5;
+        population = new int[size];
+        nextPopulation = new int[size];
+        fitness = new int[size];
+        feasible = new boolean[size];
+        parents = new int[parentsSize];
+        seen = new CodeHashSet(size);
+        workers = new Worker[(size + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        for (int k = 0; k < workers.length; k++) {
+            workers[k] = new Worker(rnd.split(), k * CHUNK_SIZE,
+                    Math.min((k + 1) * CHUNK_SIZE, size));
+        }
+        initAction = new ChunkAction(this::initChunk, 0, workers.length);
+        fitnessAction = new ChunkAction(this::fitnessChunk, 0, workers.length);
+        evolveAction = new ChunkAction(this::evolveChunk, 0, workers.length);
+        feasibleAction = new ChunkAction(this::feasibleChunk, 0, workers.length);
+    }
+
+    /*
+     * The share of one island of a population size
+     * size - the population size of all islands
+     * return: the population size of an island (even, at least 10)
+     */
+    private int islandSize(int size) {
+        return Math.max(10, (size / islands + 1) & ~1);
+    }
+
+    /*
+     * Population size for the adaptive mode
+     * The population grows with the square root of the code space and with the
+     * information the results already gave, i.e. the fewer candidates are left,
+     * the harder they are to find. Without a candidate set each result is
+     * estimated to leave a tenth of the codes.
+     * return: the population size, a multiple of CHUNK_SIZE
+     */
+    private int adaptPopulationSize() {
+        double space = Code.spaceSize(width, colQuant);
+        double estimate;
+        if (candidates != null) {
+            estimate = candidates.size();
+        } else {
+            estimate = space / Math.pow(10, rows);
+        }
+        double bits = Math.log(space / Math.max(estimate, 1)) / Math.log(2);
+        double size = Math.sqrt(space) * (2 + bits / 2);
+        size = Math.max(ADAPTIVE_MIN_SIZE, Math.min(ADAPTIVE_MAX_SIZE, size));
+        return ((int) size + CHUNK_SIZE - 1) / CHUNK_SIZE * CHUNK_SIZE;
+    }
+
+    // Checks if the time budget of the current guess expired
+    private boolean isExpired() {
+        return deadline.isExpired();
+    }
+
+    /*
+     * Set the listener that receives the progress after every generation
+     * listener - the listener, null to remove it
+     */
+    public void setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    // Initialize the arrays "guesses", "blacks" and "whites" with values from the GameField
+    // The arrays "guesses", "blacks" and "whites" are needed to accelerate the processing
     public void initResults() {
-        for (int i = 0; i < ci.getActiveRowNumber(); i++) {
+        rows = 0;
+        updateResults();
+    }
+
+    // Add the game rows played since the last call to "guesses", "blacks" and "whites"
+    private void updateResults() {
+        for (int i = rows; i < ci.getActiveRowNumber(); i++) {
+            guesses[i] = Code.of(ci.getGameFieldRow(i));
+            guessIndices[i] = indexOf(guesses[i]);
             blacks[i] = ci.getResultRow(i)
                     .containsCol(Color.Black);
             whites[i] = ci.getResultRow(i)
                     .containsCol(Color.White);
         }
+        rows = ci.getActiveRowNumber();
     }
 
     /*
@@ -85,61 +302,201 @@ public class GeneticSolver implements SolvingAlgorithm {
     public int makeGuess() {
         Row guess = generateGuess();
         ci.writeToGameField(guess.getColors());
-        int[] result = compare(guess, ci.getSecretCode());
-        blacks[ci.getActiveRowNumber()] = result[0];
-        whites[ci.getActiveRowNumber()] = result[1];
         return ci.turn();
     }
 
     /*
      * Create new generations until enough eligible codes are found
-     * return: an eligible guess
+     * In adaptive mode the time budget of the settings is used,
+     * see generateGuess(Duration).
+     * return: an eligible guess, or the fittest code if the time budget expired
+     */
+    public Row generateGuess() {
+        Duration budget = adaptive == true ? Duration.ofNanos(timeBudget) : null;
+        return generateGuess(budget).getRow();
+    }
+
+    /*
+     * Create new generations until enough eligible codes are found
+     * or the time budget expires. The budget is checked once per generation.
+     * budget - the max. time to spend, null for no limit
+     * return: an eligible guess, or the fittest code of all generations
+     * (not consistent) if the time budget expired
      *
      * see initPopulation()
      * see calcFitness()
-     * see sortFeasibleByFitness(int[], common.Row[])
+     * see selectParents()
      * see evolvePopulation()
      * see addToFeasibleCodes()
      */
-    public Row generateGuess() {
-        Row guess = new Row(width);
-        boolean doCalc;
+    public Guess generateGuess(Duration budget) {
+        return generateGuess(budget, null);
+    }
+
+    /*
+     * Create new generations until enough eligible codes are found, the time
+     * budget expires or the token is cancelled. Both are checked once per
+     * generation.
+     * budget - the max. time to spend, null for no limit
+     * token - the cancellation token, null if the guess can't be cancelled
+     * return: an eligible guess, or the fittest code of all generations
+     * (not consistent) if the search was stopped
+     */
+    public Guess generateGuess(Duration budget, CancellationToken token) {
         // first guess
         if (ci.getActiveRowNumber() == 0) {
-            return generateRndGuess();
+            return new Guess(Code.toRow(generateRndGuess(rnd), width), true);
         }
-        do {
-            int genNumber = 0;
-            doCalc = true;
-            initPopulation();
-            calcFitness();
-            sortFeasibleByFitness(fitness, population);
-
-            while (doCalc == true && genNumber <= GENERATION_SIZE
-                    && feasibleCodes.size() <= FEASIBLE_CODES_MAX) {
-                parentPos = 0;
-                evolvePopulation();
-                calcFitness();
-                sortFeasibleByFitness(fitness, population);
-                doCalc = addToFeasibleCodes();
-                genNumber++;
+        startGuess(new Deadline(budget, token));
+        while (evolve(Integer.MAX_VALUE) == false) {
+            // evolve until finished
+        }
+        return result();
+    }
+
+    /*
+     * Start the search for a new guess with a new population
+     * deadline - the end of the time budget
+     */
+    void startGuess(Deadline deadline) {
+        this.deadline = deadline;
+        updateResults();
+        // Keep at least half of the budget for the search, the set is
+        // completed by the next guesses if it takes longer
+        candidates = ci.getCandidates(deadline.share(0.5)::isExpired);
+        if (adaptive == true) {
+            resize(islandSize(adaptPopulationSize()));
+        }
+        bestFitness = Integer.MAX_VALUE;
+        generation = 0;
+        startPopulation();
+    }
+
+    // Start a new generation loop with a random population
+    private void startPopulation() {
+        genNumber = 0;
+        doCalc = true;
+        initPopulation();
+        calcFitness();
+        selectParents();
+    }
+
+    /*
+     * Create up to a number of new generations
+     * If all generations of a population are used up without a feasible code,
+     * a new population is created.
+     * generations - the max. number of generations to create
+     * return: true if the search is finished, see isFinished()
+     */
+    boolean evolve(int generations) {
+        for (int n = 0; n < generations; n++) {
+            if (isFinished() == true) {
+                return true;
             }
-            if (feasibleCodes.isEmpty() == true) {
+            if (doCalc == false || genNumber > generationSize) {
                 Debug.dbgPrint("AI: No feasible code found. "
                         + "Retry with new population");
+                startPopulation();
+                continue;
             }
-        } while (feasibleCodes.isEmpty() == true);
+            evolvePopulation();
+            calcFitness();
+            selectParents();
+            doCalc = addToFeasibleCodes() == false;
+            genNumber++;
+            generation++;
+            if (listener != null) {
+                listener.progress(generation, bestFitness, feasibleCount);
+            }
+        }
+        return isFinished();
+    }
+
+    /*
+     * Checks if the search for the current guess is finished
+     * return: true if enough feasible codes are found or the time budget
+     * expired, false otherwise
+     */
+    boolean isFinished() {
+        if (isExpired() == true) {
+            return true;
+        }
+        return feasibleCount > 0
+                && (doCalc == false || genNumber > generationSize);
+    }
+
+    /*
+     * The guess of the current search
+     * return: a random one of the feasible codes, or the fittest code of all
+     * generations (not consistent) if the time budget expired
+     */
+    Guess result() {
+        if (feasibleCount == 0) {
+            // Time is up, take the fittest code of all generations
+            Debug.dbgPrint("AI: Time budget expired. Guess the best code");
+            return new Guess(Code.toRow(bestCode, width), bestFitness == 0);
+        }
         // choose guess
-        Debug.dbgPrint("AI: There are " + feasibleCodes.size() +
+        Debug.dbgPrint("AI: There are " + feasibleCount +
                 " feasible code(s)");
-        guess = feasibleCodes.get((int) (Math.random() * feasibleCodes.size()));
-        Debug.dbgPrint("AI: guess is " + guess);
-        return guess;
+        int guess = feasibleCodes[rnd.nextInt(feasibleCount)];
+        Debug.dbgPrint("AI: guess is " + Code.toRow(guess, width));
+        return new Guess(Code.toRow(guess, width), true);
+    }
+
+    // Checks if feasible codes were found by the current search
+    boolean hasFeasibleCodes() {
+        return feasibleCount > 0;
+    }
+
+    // The fitness of the fittest code of all generations of the current search
+    int getBestFitness() {
+        return bestFitness;
+    }
+
+    // The number of feasible codes found by the current search
+    int getFeasibleCount() {
+        return feasibleCount;
+    }
+
+    // The feasible codes found by the current search
+    int[] getFeasibleCodes() {
+        return Arrays.copyOf(feasibleCodes, feasibleCount);
+    }
+
+    // The number of generations created for the current search
+    int getGeneration() {
+        return generation;
+    }
+
+    /*
+     * Copy the fittest codes of the current generation
+     * codes - the array to fill
+     * offset - the first position in codes
+     * max - the max. number of codes to copy
+     * return: the number of codes copied
+     */
+    int emigrants(int[] codes, int offset, int max) {
+        int count = Math.min(max, parentsSize);
+        System.arraycopy(parents, 0, codes, offset, count);
+        return count;
     }
 
     /*
-     * Generates a Row with random colors
-     * Generates a Row with the current width setting. The available colors are
+     * Replace the least fit parents of the current generation
+     * The codes take part in the creation of the next generation.
+     * codes - the packed codes
+     * offset - the first position in codes
+     * count - the number of codes to use
+     */
+    void immigrate(int[] codes, int offset, int count) {
+        count = Math.min(count, parentsSize);
+        System.arraycopy(codes, offset, parents, parentsSize - count, count);
+    }
+
+    /*
+     * Generates a packed code with random colors
+     * Generates a code with the current width setting. The available colors are
      * determined by the colorQuant setting. If the doubleColors setting
      * is false, only different colors are set.
      *
@@ -149,43 +506,46 @@ public class GeneticSolver implements SolvingAlgorithm {
      * This is not a bug, just a side effect of the complex
      * algorithm the AI is using.
      *
-     * return: a Row with random colors
-     */
-    private Row generateRndGuess() {
-        Row guess = new Row(width);
-        // Prepare values to fit range-rule
-        Color[] values = new Color[colQuant];
-        Color[] all = Color.values();
-        System.arraycopy(all, 0, values, 0, colQuant);
+     * rnd - the random number generator to use
+     * return: a packed code with random colors
+     */
+    private int generateRndGuess(Rng rnd) {
+        int guess = 0;
+        // Bit mask of the colors already used
+        int used = 0;
         // Do the actual code generation
         int i = 0;
         while (i < width) {
-            Color now = values[(int) (Math.random() * colQuant)];
-            if (guess.containsCol(now) > 0) {
+            int now = rnd.nextInt(colQuant);
+            if ((used & (1 << now)) != 0) {
                 if (doubleCols == true) {
-                    guess.setColAtPos(i++, now);
+                    guess = Code.set(guess, i++, now);
                 }
             } else {
-                guess.setColAtPos(i++, now);
+                guess = Code.set(guess, i++, now);
             }
+            used |= 1 << now;
         }
         return guess;
     }
 
-    // Initializes the Population with random Rows
+    // Initializes the Population with random codes
     // feasibleCodes gets purged
     private void initPopulation() {
         // init population with random guesses.
-        int i = 0;
-        feasibleCodes.clear();
-        while (i < POPULATION_SIZE) {
-            population[i] = generateRndGuess();
-            i++;
+        feasibleCount = 0;
+        forEachChunk(initAction);
+    }
+
+    // Initializes a chunk of the population with random codes
+    private void initChunk(Worker w) {
+        for (int i = w.from; i < w.to; i++) {
+            population[i] = generateRndGuess(w.rnd);
         }
     }
 
     /*
-     * Calculates the fitness of every Row in population.
+     * Calculates the fitness of every code in population.
      * A fitness-value and the corresponding element of the population array
      * both have the same index in their respective arrays.
      *
@@ -193,31 +553,49 @@ public class GeneticSolver implements SolvingAlgorithm {
      * https://lirias.kuleuven.be/bitstream/123456789/164803/1/KBI_0806.pdf
      * Efficient solutions for Mastermind using genetic algorithms on page 6
      *
-     * Compare each Row of population array with each row existing
-     * ci.getGameFieldRow(j) returns colors of this row
-     * compare - creates and returns array where
-     * result[0] - number of blacks (matching colors at the matching positions),
-     * result[1] - matching colors at the different positions
+     * Compare each code of population array with each row existing
+     * guesses[j] holds the packed colors of this row
+     * score - looks up or computes and returns a packed feedback where
+     * Code.blacks() - number of blacks (matching colors at the matching positions),
+     * Code.whites() - matching colors at the different positions
      *
      * Compare number of blacks and number of whites for population[i] row and row[j]
      * The difference is an indication of the quality of the population[i] row
      * if these differences are zero for each previous guess then the code is eligible.
+     * Eligible codes are looked up in the candidate set (if any) without scoring.
+     * The chunks of the population are calculated in parallel.
      */
     private void calcFitness() {
-        int xtmp;
-        int ytmp;
-        for (int i = 0; i < POPULATION_SIZE; i++) {
-            xtmp = 0;
-            ytmp = 0;
-
-            for (int j = 0; j < ci.getActiveRowNumber(); j++) {
-                int[] result = compare(
-                        population[i], ci.getGameFieldRow(j));
-                xtmp += Math.abs(result[0] - blacks[j]);//+width * j;
-                ytmp += Math.abs(result[1] - whites[j]);//+width * j;
-            }
-            fitness[i] = (xtmp + ytmp);
+        forEachChunk(fitnessAction);
+    }
+
+    // Calculates the fitness of a chunk of the population
+    private void fitnessChunk(Worker w) {
+        for (int i = w.from; i < w.to; i++) {
+            fitness[i] = calcFitness(population[i]);
+        }
+    }
+
+    /*
+     * Calculates the fitness of a single code
+     * code - the packed code
+     * return: the fitness, 0 for an eligible code
+     * see calcFitness()
+     */
+    private int calcFitness(int code) {
+        if (candidates != null && candidates.contains(code)) {
+            return 0;
+        }
+        int xtmp = 0;
+        int ytmp = 0;
+        int index = indexOf(code);
+
+        for (int j = 0; j < rows; j++) {
+            int result = score(code, index, j);
+            xtmp += Math.abs(Code.blacks(result) - blacks[j]);//+width * j;
+            ytmp += Math.abs(Code.whites(result) - whites[j]);//+width * j;
         }
+        return xtmp + ytmp;
     }
 
     /*
@@ -230,37 +608,48 @@ public class GeneticSolver implements SolvingAlgorithm {
      *
      * http://en.wikipedia.org/wiki/Genetic_algorithm#Reproduction
      *
-     * see xOver1(common.Row[], int, int)
-     * see xOver2(common.Row[], int, int)
-     * see mutation(common.Row[], int)
-     * see permutation(common.Row[], int)
-     * see inversion(common.Row[], int)
+     * The offspring of every chunk is generated in parallel.
+     * The new generation is written to nextPopulation, which is then swapped
+     * with population. The old generation is overwritten in the next round,
+     * so no population arrays are allocated per generation.
+     *
+     * see xOver1(Worker, int[], int, int)
+     * see xOver2(Worker, int[], int, int)
+     * see mutation(Worker, int[], int)
+     * see permutation(Worker, int[], int)
+     * see inversion(Worker, int[], int)
      */
     private void evolvePopulation() {
-        Row[] newPopulation = new Row[POPULATION_SIZE];
-        for (int i = 0; i < POPULATION_SIZE; i++) {
-            newPopulation[i] = new Row(width);
-        }
-        for (int i = 0; i < POPULATION_SIZE; i += 2) {
-            if ((int) (Math.random() * 2) == 0) {
-                xOver1(newPopulation, i, i + 1);
+        forEachChunk(evolveAction);
+
+        doubleToRnd(nextPopulation);
+        int[] tmp = population;
+        population = nextPopulation;
+        nextPopulation = tmp;
+    }
+
+    // Generates the offspring of a chunk into nextPopulation
+    private void evolveChunk(Worker w) {
+        int[] newPopulation = nextPopulation;
+        // Spread the chunks over the parents
+        w.parentPos = w.from * parentsSize / populationSize;
+        for (int i = w.from; i < w.to; i += 2) {
+            if (w.rnd.nextInt(2) == 0) {
+                xOver1(w, newPopulation, i, i + 1);
             } else {
-                xOver2(newPopulation, i, i + 1);
+                xOver2(w, newPopulation, i, i + 1);
             }
         }
 
-        for (int i = 0; i < POPULATION_SIZE; i++) {
-            if ((int) (Math.random() * 100) < 3) {
-                mutation(newPopulation, i);
-            } else if ((int) (Math.random() * 100) < 3) {
-                permutation(newPopulation, i);
-            } else if ((int) (Math.random() * 100) < 2) {
-                inversion(newPopulation, i);
+        for (int i = w.from; i < w.to; i++) {
+            if (w.rnd.nextInt(100) < 3) {
+                mutation(w, newPopulation, i);
+            } else if (w.rnd.nextInt(100) < 3) {
+                permutation(w, newPopulation, i);
+            } else if (w.rnd.nextInt(100) < 2) {
+                inversion(w, newPopulation, i);
             }
         }
-
-        doubleToRnd(newPopulation);
-        population = newPopulation;
     }
 
     /*
@@ -269,98 +658,125 @@ public class GeneticSolver implements SolvingAlgorithm {
      * if c was the secret code.
      * X is the number of exact matches. Y is the number of guesses which are
      * the right color but in the wrong position.
+     * The codes are checked in parallel, then added in order until
+     * feasibleCodes is full.
      *
-     * return: false if feasibleCodes is full, true otherwise
+     * return: true if feasibleCodes is full, false otherwise
      */
     private boolean addToFeasibleCodes() {
-        outer:
-        for (int i = 0; i < POPULATION_SIZE; i++) {
-            for (int j = 0; j < ci.getActiveRowNumber(); j++) {
-                int[] result = compare(population[i],
-                        ci.getGameFieldRow(j));
-
-                if (result[0] != blacks[j] || result[1] != whites[j]) {
-                    continue outer;
-                }
+        forEachChunk(feasibleAction);
+        for (int i = 0; i < populationSize
+                && feasibleCount < feasibleCodesMax; i++) {
+            if (feasible[i] == true
+                    && isFeasibleCode(population[i]) == false) {
+                feasibleCodes[feasibleCount++] = population[i];
             }
+        }
+        return feasibleCount == feasibleCodesMax;
+    }
 
-            if (feasibleCodes.size() < FEASIBLE_CODES_MAX) {
-                if (feasibleCodes.contains(population[i]) == false) {
-                    feasibleCodes.add(population[i]);
-                    if (feasibleCodes.size() < FEASIBLE_CODES_MAX) {
-                        return false;
-                    }
-                }
-            } else {
-                // E is full
-                return false;
+    // Checks a chunk of the population for feasible codes
+    private void feasibleChunk(Worker w) {
+        for (int i = w.from; i < w.to; i++) {
+            feasible[i] = isFeasible(population[i]);
+        }
+    }
+
+    /*
+     * Checks if a code was already added to feasibleCodes
+     * code - the packed code
+     * return: true if the code is in feasibleCodes, false otherwise
+     */
+    private boolean isFeasibleCode(int code) {
+        for (int k = 0; k < feasibleCount; k++) {
+            if (feasibleCodes[k] == code) {
+                return true;
             }
         }
-        return true;
+        return false;
     }
 
-    // Replaces double elements in newPopulation
-    // newPopulation - the population array that will be manipulated
-    private void doubleToRnd(Row[] newPopulation) {
-        for (int i = 0; i < POPULATION_SIZE; i++) {
-            if (lookForSame(newPopulation, i) == true) {
-                newPopulation[i] = generateRndGuess();
+    /*
+     * Checks if a code is feasible
+     * If there is a candidate set this is a membership check,
+     * otherwise the code is scored against every previous guess.
+     * code - the packed code
+     * return: true if the code is feasible, false otherwise
+     */
+    private boolean isFeasible(int code) {
+        if (candidates != null) {
+            return candidates.contains(code);
+        }
+        int index = indexOf(code);
+        for (int j = 0; j < rows; j++) {
+            int result = score(code, index, j);
+
+            if (Code.blacks(result) != blacks[j]
+                    || Code.whites(result) != whites[j]) {
+                return false;
             }
         }
+        return true;
     }
 
     /*
-     * Look for Rows that are equal to the Row at popPos in newPopulation
-     * newPopulation - the population array that will be searched
-     * popPos - the position of the Row within the population array that will be compared
+     * Replaces double elements in newPopulation
+     * Every code is added to a hash set. If it is already in the set it is
+     * replaced by a random code. If no new code is found after a few tries
+     * (e.g. in a very small code space) the duplicate is kept.
      *
-     * return: true if equal Row found. false if no equal Row found
+     * newPopulation - the population array that will be manipulated
      */
-    private boolean lookForSame(Row[] newPopulation, int popPos) {
-        for (int i = 0; i < POPULATION_SIZE; i++) {
-            if (population[popPos].equals(newPopulation[popPos]) == true) {
-                return true;
+    private void doubleToRnd(int[] newPopulation) {
+        seen.clear();
+        for (int i = 0; i < populationSize; i++) {
+            int tries = 0;
+            while (seen.add(newPopulation[i]) == false
+                    && tries++ < DOUBLE_RETRIES) {
+                newPopulation[i] = generateRndGuess(rnd);
             }
         }
-        return false;
     }
 
     /*
      * Mutation. Replaces the digit of one randomly chosen position by a random other digit
      *
+     * w - the worker of the chunk
      * newPopulation - the population array that will be manipulated
-     * popPos - the position of the Row within the population array that will be changed
+     * popPos - the position of the code within the population array that will be changed
      */
-    private void mutation(Row[] newPopulation, int popPos) {
-        newPopulation[popPos].setColAtPos((int) (Math.random() * width),
-                Color.values()[(int) (Math.random() * colQuant)]);
+    private void mutation(Worker w, int[] newPopulation, int popPos) {
+        newPopulation[popPos] = Code.set(newPopulation[popPos],
+                w.rnd.nextInt(width), w.rnd.nextInt(colQuant));
     }
 
     /*
      * Permutation. The colors of two random positions are switched
      *
+     * w - the worker of the chunk
      * newPopulation - the population array that will be manipulated
-     * popPos - the position of the Row within the population array that will be changed
+     * popPos - the position of the code within the population array that will be changed
      */
-    private void permutation(Row[] newPopulation, int popPos) {
-        int pos1 = (int) (Math.random() * width);
-        int pos2 = (int) (Math.random() * width);
-        Color tmp = newPopulation[popPos].getColAtPos(pos1);
-        newPopulation[popPos].setColAtPos(pos1,
-                newPopulation[popPos].getColAtPos(pos2));
-        newPopulation[popPos].setColAtPos(pos2, tmp);
+    private void permutation(Worker w, int[] newPopulation, int popPos) {
+        int pos1 = w.rnd.nextInt(width);
+        int pos2 = w.rnd.nextInt(width);
+        int code = newPopulation[popPos];
+        code = Code.set(code, pos1, Code.get(newPopulation[popPos], pos2));
+        code = Code.set(code, pos2, Code.get(newPopulation[popPos], pos1));
+        newPopulation[popPos] = code;
     }
 
     /*
      * Inversion. Two positions are randomly picked, and the sequence of colors
      * between these positions is inverted.
      *
+     * w - the worker of the chunk
      * newPopulation - the population array that will be manipulated
-     * popPos - the position of the Row within the population array that will be changed
+     * popPos - the position of the code within the population array that will be changed
      */
-    private void inversion(Row[] newPopulation, int popPos) {
-        int pos1 = (int) (Math.random() * width);
-        int pos2 = (int) (Math.random() * width);
+    private void inversion(Worker w, int[] newPopulation, int popPos) {
+        int pos1 = w.rnd.nextInt(width);
+        int pos2 = w.rnd.nextInt(width);
 
         if (pos2 < pos1) {
             int tmp = pos2;
@@ -368,12 +784,13 @@ public class GeneticSolver implements SolvingAlgorithm {
             pos1 = tmp;
         }
 
+        int code = newPopulation[popPos];
         for (int i = 0; i < (pos2 - pos1)/2; i++) {
-            Color tmp = newPopulation[popPos].getColAtPos(pos1 + i);
-            newPopulation[popPos].setColAtPos(pos1 + i,
-                    newPopulation[popPos].getColAtPos(pos2 - i));
-            newPopulation[popPos].setColAtPos(pos2 - i, tmp);
+            int tmp = Code.get(code, pos1 + i);
+            code = Code.set(code, pos1 + i, Code.get(code, pos2 - i));
+            code = Code.set(code, pos2 - i, tmp);
         }
+        newPopulation[popPos] = code;
     }
 
     /*
@@ -384,26 +801,27 @@ public class GeneticSolver implements SolvingAlgorithm {
      *
      * http://en.wikipedia.org/wiki/Crossover_%28genetic_algorithm%29#One-point_crossover
      *
+     * w - the worker of the chunk
      * newPopulation - the population array that will be manipulated
-     * child1Pos - the position of a Row within the population array that will be changed
-     * child2Pos - he position of a Row within the population array that will be changed
+     * child1Pos - the position of a code within the population array that will be changed
+     * child2Pos - he position of a code within the population array that will be changed
      */
-    private void xOver1(Row[] newPopulation, int child1Pos, int child2Pos) {
-        int mother = getParentPos();
-        int father = getParentPos();
-        int sep = ((int) (Math.random() * width)) + 1;
+    private void xOver1(Worker w, int[] newPopulation, int child1Pos, int child2Pos) {
+        int mother = getParentPos(w);
+        int father = getParentPos(w);
+        int sep = (w.rnd.nextInt(width)) + 1;
 
         for (int i = 0; i < width; i++) {
             if (i <= sep) {
-                newPopulation[child1Pos].setColAtPos(i,
-                        population[mother].getColAtPos(i));
-                newPopulation[child2Pos].setColAtPos(i,
-                        population[father].getColAtPos(i));
+                newPopulation[child1Pos] = Code.set(newPopulation[child1Pos],
+                        i, Code.get(parents[mother], i));
+                newPopulation[child2Pos] = Code.set(newPopulation[child2Pos],
+                        i, Code.get(parents[father], i));
             } else {
-                newPopulation[child1Pos].setColAtPos(i,
-                        population[father].getColAtPos(i));
-                newPopulation[child2Pos].setColAtPos(i,
-                        population[mother].getColAtPos(i));
+                newPopulation[child1Pos] = Code.set(newPopulation[child1Pos],
+                        i, Code.get(parents[father], i));
+                newPopulation[child2Pos] = Code.set(newPopulation[child2Pos],
+                        i, Code.get(parents[mother], i));
             }
         }
     }
@@ -415,18 +833,19 @@ public class GeneticSolver implements SolvingAlgorithm {
      *
      * http://en.wikipedia.org/wiki/Crossover_%28genetic_algorithm%29#Two-point_crossover
      *
+     * w - the worker of the chunk
      * newPopulation - the population array that will be manipulated
-     * child1Pos - the position of a Row within the population array that will be changed
-     * child2Pos - the position of a Row within the population array that will be changed
+     * child1Pos - the position of a code within the population array that will be changed
+     * child2Pos - the position of a code within the population array that will be changed
      */
-    private void xOver2(Row[] newPopulation, int child1Pos, int child2Pos) {
-        int mother = getParentPos();
-        int father = getParentPos();
+    private void xOver2(Worker w, int[] newPopulation, int child1Pos, int child2Pos) {
+        int mother = getParentPos(w);
+        int father = getParentPos(w);
         int sep1;
         int sep2;
 
-        sep1 = ((int) (Math.random() * width)) + 1;
-        sep2 = ((int) (Math.random() * width)) + 1;
+        sep1 = (w.rnd.nextInt(width)) + 1;
+        sep2 = (w.rnd.nextInt(width)) + 1;
 
         if (sep1 > sep2) {
             int temp = sep1;
@@ -436,15 +855,15 @@ public class GeneticSolver implements SolvingAlgorithm {
 
         for (int i = 0; i < width; i++) {
             if (i <= sep1 || i > sep2) {
-                newPopulation[child1Pos].setColAtPos(i,
-                        population[mother].getColAtPos(i));
-                newPopulation[child2Pos].setColAtPos(i,
-                        population[father].getColAtPos(i));
+                newPopulation[child1Pos] = Code.set(newPopulation[child1Pos],
+                        i, Code.get(parents[mother], i));
+                newPopulation[child2Pos] = Code.set(newPopulation[child2Pos],
+                        i, Code.get(parents[father], i));
             } else {
-                newPopulation[child1Pos].setColAtPos(i,
-                        population[father].getColAtPos(i));
-                newPopulation[child2Pos].setColAtPos(i,
-                        population[mother].getColAtPos(i));
+                newPopulation[child1Pos] = Code.set(newPopulation[child1Pos],
+                        i, Code.get(parents[father], i));
+                newPopulation[child2Pos] = Code.set(newPopulation[child2Pos],
+                        i, Code.get(parents[mother], i));
             }
         }
 
@@ -452,153 +871,154 @@ public class GeneticSolver implements SolvingAlgorithm {
 
     /*
      * Getter for a good parent position in the population.
-     * In this case the one of the best fifth of the population is used.
+     * In this case the one of the best fifth of the population is used,
+     * see selectParents().
      * It is important that only parents with a good fitness value are used to
      * generate the next generation.
      *
-     * return: one position in the first fifth of the population-array successively increasing
+     * w - the worker of the chunk, holding the last parent position
+     * return: one position in the parents array successively increasing
      */
-    private int getParentPos() {
-        parentPos += (int) (Math.random() * 7);
-        if (parentPos < POPULATION_SIZE / 5) {
-            return parentPos;
+    private int getParentPos(Worker w) {
+        w.parentPos += w.rnd.nextInt(7);
+        if (w.parentPos < parentsSize) {
+            return w.parentPos;
         } else {
-            parentPos = 0;
+            w.parentPos = 0;
         }
-        return parentPos;
+        return w.parentPos;
     }
 
     /*
-     * Compares two Rows.
-     * result[0] is incremented if an equal value(color) is at an equal position
-     * result[1] is incremented if an equal value is an different positions
-     * result[0] are the black pegs
-     * result[1] are the white pegs
-     * http://en.wikipedia.org/wiki/Mastermind_%28board_game%29#Gameplay_and_rules
-     *
-     * a - Row Guesscode
-     * b - Row Secretcode
-     * return:
-     * [0] is the number of black pegs
-     * [1] is the number of white pegs
-     */
-    private int[] compare(Row a, Row b) {
-        int[] result = {0, 0};
-        Color[] code = new Color[width];
-        Color[] secret = new Color[width];
-        // Create real copy
-        System.arraycopy(a.getColors(), 0, code, 0, width);
-        System.arraycopy(b.getColors(), 0, secret, 0, width);
-
-        // Check for black ones first - same color, same position
-        // and assign checked to null
-        for (int i = 0; i < width; i++) {
-            if (code[i] == secret[i]) {
-                result[0]++;
-                secret[i] = null;
-                code[i] = null;
-            }
-        }
-
-        outer:
-        for (int i = 0; i < width; i++) {
-            if (code[i] != null) {
-                for (int j = 0; j < width; j++) {
-                    if (code[i] == secret[j]) {
-                        result[1]++;
-                        secret[j] = null;
-                        continue outer;
-                    }
-                }
-            }
-        }
-        return result;
-    }
-
-    /*
-     * This is a Quicksort that sorts the fitness and pop arrays
-     * by the criteria in the fitness-array
-     * Divide, sort, put together sorted
-     *
-     * fitness - an int array
-     * pop - an array of Rows
-     * see sort(int[], common.Row[], int, int)
-     * see divide(int[], common.Row[], int, int, int)
-     * see swap(common.Row[], int, int)
-     * see swap(int[], int, int)
+     * Runs an action for every chunk of the population on the fork-join pool
+     * action - the task tree of the action, see ChunkAction
      */
-    private void sortFeasibleByFitness(int[] fitness, Row[] pop) {
-        sort(fitness, pop, 0, fitness.length - 1);
+    private void forEachChunk(ChunkAction action) {
+        action.reinitialize();
+        pool.invoke(action);
     }
 
     /*
-     * Helper function for recursive sorting
+     * Scores a code against a previous guess.
+     * The feedback is looked up in the FeedbackTable if both codes are part
+     * of it, otherwise it is computed with Score.compare().
      *
-     * fitness - an int array
-     * pop - an array of Rows
-     * low - the lower limit
-     * up - the upper limit
+     * code - the packed code
+     * index - the index of the code in the table, see indexOf(int)
+     * row - the number of the previous guess
+     * return: the packed feedback
      */
-    private void sort(int[] fitness, Row[] pop, int low, int up) {
-        int p = (low + up) / 2;
-        if (up > low) {
-            // Divide
-            int pn = divide(fitness, pop, low, up, p);
-            // and sort
-            sort(fitness, pop, low, pn - 1);
-            sort(fitness, pop, pn + 1, up);
+    private int score(int code, int index, int row) {
+        if (index >= 0 && guessIndices[row] >= 0) {
+            return table.feedback(guessIndices[row], index);
         }
+        return Score.compare(code, guesses[row], width);
+    }
+
+    // The index of a code in the FeedbackTable, -1 if there is no table
+    // or the code is not part of it
+    private int indexOf(int code) {
+        return table != null ? table.indexOf(code) : -1;
     }
 
     /*
-     * Helper function for partitioning
-     *
-     * fitness - an int array
-     * pop - an array of Rows
-     * low - the lower limit
-     * up - the upper limit
-     * pivot - the position of the Pivot element
-     * return the new Position of the Pivot element
-     */
-    private int divide(int[] fitness, Row[] pop, int low, int up, int pivot) {
-        int pn = low;
-        int pv = fitness[pivot];
-        swap(fitness, pivot, up);
-        swap(pop, pivot, up);
-        for (int i = low; i < up; i++) {
-            if (fitness[i] <= pv) {
-                swap(fitness, pn, i);
-                swap(pop, pn++, i);
+     * Selects the best fifth of the population as parents for the next generation
+     * This is a counting sort by fitness that only keeps the first parentsSize
+     * codes. It runs in O(populationSize + max. fitness) without recursion,
+     * is stable and neither reorders the population nor degrades if many
+     * codes have the same fitness.
+     * The fittest code is kept as bestCode if it beats all earlier generations.
+     */
+    private void selectParents() {
+        int max = 0;
+        for (int i = 0; i < populationSize; i++) {
+            max = Math.max(max, fitness[i]);
+        }
+        if (fitnessCount.length <= max) {
+            fitnessCount = new int[max + 1];
+        } else {
+            Arrays.fill(fitnessCount, 0, max + 1, 0);
+        }
+        for (int i = 0; i < populationSize; i++) {
+            fitnessCount[fitness[i]]++;
+        }
+        // Turn the counts into the first position of every fitness value
+        int pos = 0;
+        for (int f = 0; f <= max; f++) {
+            int count = fitnessCount[f];
+            fitnessCount[f] = pos;
+            pos += count;
+        }
+        int best = -1;
+        for (int i = 0; i < populationSize; i++) {
+            int p = fitnessCount[fitness[i]]++;
+            if (p < parentsSize) {
+                parents[p] = population[i];
             }
-            swap(fitness, up, pn);
-            swap(pop, up, pn);
+            if (p == 0) {
+                best = i;
+            }
+        }
+        if (fitness[best] < bestFitness) {
+            bestFitness = fitness[best];
+            bestCode = population[best];
         }
-        return pn;
     }
 
     /*
-     * Helper function to swap two elements of an int array
-     *
-     * fitness - an int array
-     * a - position of the first element
-     * b - position of the second element
+     * State of one chunk of the population.
+     * Every chunk has its own random number generator and parent position,
+     * so the chunks can be processed in parallel. As a chunk always covers
+     * the same range, the results do not depend on the thread scheduling.
      */
-    private void swap(int[] fitness, int a, int b) {
-        int tmp = fitness[a];
-        fitness[a] = fitness[b];
-        fitness[b] = tmp;
+    private static class Worker {
+        private final Rng rnd;
+        private final int from;
+        private final int to;
+        private int parentPos = 0;
+
+        Worker(Rng rnd, int from, int to) {
+            this.rnd = rnd;
+            this.from = from;
+            this.to = to;
+        }
     }
 
     /*
-     * Helper function to swap two elements of an array of Rows
-     *
-     * pop - an array of Rows
-     * a - position of the first element
-     * b - position of the second element
-     */
-    private void swap(Row[] pop, int a, int b) {
-        Row tmp = pop[a];
-        pop[a] = pop[b];
-        pop[b] = tmp;
+     * Runs an action for a range of workers, splitting until one worker is left
+     * The subtasks are created once with the tree and reinitialized before
+     * every run, so the tree can be invoked again and again.
+     */
+    private class ChunkAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Consumer<Worker> action;
+        private final int low;
+        private final ChunkAction left;
+        private final ChunkAction right;
+
+        ChunkAction(Consumer<Worker> action, int low, int up) {
+            this.action = action;
+            this.low = low;
+            if (up - low > 1) {
+                int mid = (low + up) >>> 1;
+                left = new ChunkAction(action, low, mid);
+                right = new ChunkAction(action, mid, up);
+            } else {
+                left = null;
+                right = null;
+            }
+        }
+
+        @Override
+        protected void compute() {
+            if (left == null) {
+                action.accept(workers[low]);
+                return;
+            }
+            left.reinitialize();
+            right.reinitialize();
+            invokeAll(left, right);
+        }
     }
 }
@@ -0,0 +1,46 @@
+package ai;
+
+import common.Row;
+
+
+/*
+ * The result of a time-bounded guess generation,
+ * see SolvingAlgorithm.generateGuess(Duration).
+ *
+ * If the time budget expired before a solver found a guess that is
+ * consistent with all previous results, the best guess found so far is
+ * returned and isConsistent() is false.
+ */
+public final class Guess {
+
+    private final Row row;
+    private final boolean consistent;
+
+    /*
+     * Creates a result
+     * row - the guess
+     * consistent - true if the guess is proven to be consistent
+     * with all previous results, false otherwise
+     */
+    public Guess(Row row, boolean consistent) {
+        this.row = row;
+        this.consistent = consistent;
+    }
+
+    /*
+     * Getter for the guess
+     * return: the row that was guessed
+     */
+    public Row getRow() {
+        return row;
+    }
+
+    /*
+     * Checks if the guess could be the secret code
+     * return: true if the guess is proven to be consistent with all previous
+     * results, false if it is not or if it was not checked
+     */
+    public boolean isConsistent() {
+        return consistent;
+    }
+}
@@ -0,0 +1,256 @@
+package ai;
+
+import common.Debug;
+import common.Rng;
+import common.Row;
+import game.ControlInterface;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/*
+ * An island-model variant of the genetic solving algorithm.
+ * See http://en.wikipedia.org/wiki/Genetic_algorithm#Parallel_implementations
+ *
+ * Several independent populations (islands, see GeneticSolver) evolve in
+ * parallel on a fork-join pool. Every MIGRATION_INTERVAL generations the
+ * fittest codes of every island migrate to the next island (in a ring),
+ * where they replace the least fit parents. The islands keep their diversity,
+ * while good codes still spread over all of them. This avoids that a single
+ * population gets stuck and has to start over from scratch.
+ *
+ * The population size of the settings is shared by all islands.
+ * The search ends as soon as one island found enough feasible codes.
+ */
+
+public class IslandSolver implements SolvingAlgorithm {
+
+    // Number of generations between two migrations
+    private final int MIGRATION_INTERVAL = 10;
+
+    // Number of codes migrating from every island
+    private final int MIGRANTS = 8;
+
+    private ControlInterface ci;
+
+    // The islands
+    private GeneticSolver[] islands;
+
+    // The fork-join pool the islands are processed on
+    private ForkJoinPool pool;
+
+    // Codes of all islands for the current migration, MIGRANTS per island
+    private int[] migrants;
+    private int[] migrantCount;
+
+    // Evolves all islands for one interval, built once, see IslandAction
+    private IslandAction epoch;
+
+    // Receives the progress after every migration interval, null if there is none
+    private ProgressListener listener;
+
+    // Initialize the AI with settings from the Mastermind engine
+    // ci - a control interface the AI will use to interact with a game
+    public IslandSolver(ControlInterface ci) {
+        this(ci, Math.max(2, Runtime.getRuntime().availableProcessors()),
+                ForkJoinPool.commonPool(), Rng.create());
+    }
+
+    /*
+     * Initialize the AI with settings from the Mastermind engine
+     * ci - a control interface the AI will use to interact with a game
+     * islands - the number of islands (at least 1)
+     * pool - the fork-join pool the islands are processed on
+     * rnd - the random number generator, split for every island
+     */
+    public IslandSolver(ControlInterface ci, int islands, ForkJoinPool pool,
+                        Rng rnd) {
+        this.ci = ci;
+        this.pool = pool;
+        this.islands = new GeneticSolver[Math.max(1, islands)];
+        for (int i = 0; i < this.islands.length; i++) {
+            this.islands[i] = new GeneticSolver(ci, pool, rnd.split(),
+                    this.islands.length);
+        }
+        migrants = new int[this.islands.length * MIGRANTS];
+        migrantCount = new int[this.islands.length];
+        epoch = new IslandAction(0, this.islands.length);
+    }
+
+    /*
+     * Set the listener that receives the progress after every migration
+     * interval. The generations and feasible codes of all islands are added
+     * up, the best fitness is the one of the fittest island.
+     * listener - the listener, null to remove it
+     */
+    public void setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    /*
+     * Do a full guess on the Mastermind engine
+     * This includes to generate a guess, pass it to the engine and do a full game turn
+     *
+     * return:
+     * -1 = Game ended and code was not broken
+     *  1 = Game ended an code was broken
+     *  0 = Just a normal turn or the game already ended
+     *  see ControlInterface.turn()
+     */
+    public int makeGuess() {
+        Row guess = generateGuess();
+        ci.writeToGameField(guess.getColors());
+        return ci.turn();
+    }
+
+    /*
+     * Evolve the islands until one of them found enough eligible codes
+     * In adaptive mode the time budget of the settings is used.
+     * return: an eligible guess, or the fittest code if the time budget expired
+     */
+    public Row generateGuess() {
+        Duration budget = null;
+        if (ci.getSettingAiAdaptive() == true) {
+            budget = Duration.ofMillis(ci.getSettingAiTimeBudget());
+        }
+        return generateGuess(budget).getRow();
+    }
+
+    /*
+     * Evolve the islands until one of them found enough eligible codes
+     * or the time budget expires. The budget is checked once per generation.
+     * budget - the max. time to spend, null for no limit
+     * return: an eligible guess, or the fittest code of all islands
+     * (not consistent) if the time budget expired
+     */
+    public Guess generateGuess(Duration budget) {
+        return generateGuess(budget, null);
+    }
+
+    /*
+     * Evolve the islands until one of them found enough eligible codes,
+     * the time budget expires or the token is cancelled. All islands check
+     * the token once per generation.
+     * budget - the max. time to spend, null for no limit
+     * token - the cancellation token, null if the guess can't be cancelled
+     * return: an eligible guess, or the fittest code of all islands
+     * (not consistent) if the search was stopped
+     */
+    public Guess generateGuess(Duration budget, CancellationToken token) {
+        // first guess
+        if (ci.getActiveRowNumber() == 0) {
+            return islands[0].generateGuess(budget, token);
+        }
+        Deadline deadline = new Deadline(budget, token);
+        for (int i = 0; i < islands.length; i++) {
+            islands[i].startGuess(deadline);
+        }
+        int epochs = 0;
+        while (isFinished() == false) {
+            epoch.reinitialize();
+            pool.invoke(epoch);
+            migrate();
+            epochs++;
+            if (listener != null) {
+                reportProgress();
+            }
+        }
+        Debug.dbgPrint("AI: " + islands.length + " islands, "
+                + epochs + " migration interval(s)");
+        return bestIsland().result();
+    }
+
+    // Checks if one of the islands found enough feasible codes or time is up
+    private boolean isFinished() {
+        for (int i = 0; i < islands.length; i++) {
+            if (islands[i].isFinished() == true) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * The island the guess is taken from
+     * return: the first island with feasible codes, the island with the
+     * fittest code if there is none
+     */
+    private GeneticSolver bestIsland() {
+        GeneticSolver best = islands[0];
+        for (int i = 0; i < islands.length; i++) {
+            if (islands[i].hasFeasibleCodes() == true) {
+                return islands[i];
+            }
+            if (islands[i].getBestFitness() < best.getBestFitness()) {
+                best = islands[i];
+            }
+        }
+        return best;
+    }
+
+    // Pass the progress of all islands to the listener
+    private void reportProgress() {
+        int generation = 0;
+        int bestFitness = Integer.MAX_VALUE;
+        int feasibleCount = 0;
+        for (int i = 0; i < islands.length; i++) {
+            generation += islands[i].getGeneration();
+            bestFitness = Math.min(bestFitness, islands[i].getBestFitness());
+            feasibleCount += islands[i].getFeasibleCount();
+        }
+        listener.progress(generation, bestFitness, feasibleCount);
+    }
+
+    // Move the fittest codes of every island to the next island
+    private void migrate() {
+        if (islands.length < 2) {
+            return;
+        }
+        for (int i = 0; i < islands.length; i++) {
+            migrantCount[i] = islands[i].emigrants(migrants, i * MIGRANTS,
+                    MIGRANTS);
+        }
+        for (int i = 0; i < islands.length; i++) {
+            int from = (i + islands.length - 1) % islands.length;
+            islands[i].immigrate(migrants, from * MIGRANTS, migrantCount[from]);
+        }
+    }
+
+    /*
+     * Evolves a range of islands for one migration interval
+     * Splits until one island is left. Like the chunks of a GeneticSolver
+     * the subtasks are created once and reinitialized before every run.
+     */
+    private class IslandAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int low;
+        private final IslandAction left;
+        private final IslandAction right;
+
+        IslandAction(int low, int up) {
+            this.low = low;
+            if (up - low > 1) {
+                int mid = (low + up) >>> 1;
+                left = new IslandAction(low, mid);
+                right = new IslandAction(mid, up);
+            } else {
+                left = null;
+                right = null;
+            }
+        }
+
+        @Override
+        protected void compute() {
+            if (left == null) {
+                islands[low].evolve(MIGRATION_INTERVAL);
+                return;
+            }
+            left.reinitialize();
+            right.reinitialize();
+            invokeAll(left, right);
+        }
+    }
+}
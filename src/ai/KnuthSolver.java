@@ -0,0 +1,432 @@
+package ai;
+
+import common.Code;
+import common.Debug;
+import common.Row;
+import common.Score;
+import game.ControlInterface;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+/*
+ * A deterministic solving algorithm using Knuth's minimax strategy.
+ * See http://en.wikipedia.org/wiki/Mastermind_%28board_game%29#Worst_case:_Five-guess_algorithm
+ *
+ * The solver keeps the set of candidates, i.e. all codes that are consistent
+ * with the previous guesses and results. Every possible guess splits the
+ * candidates into partitions by the feedback it would get. The guess whose
+ * largest (worst-case) partition is the smallest is played. Ties are broken
+ * in favour of candidates, then of the lowest code.
+ *
+ * The partitions are counted in parallel on a fork-join pool.
+ * If the code space is too large to try every code as a guess, only the
+ * candidates (or an evenly spread part of them) are tried.
+ *
+ * With a time budget the search stops when the budget expires and the best
+ * guess scored so far is played, see generateGuess(Duration).
+ */
+
+public class KnuthSolver implements SolvingAlgorithm {
+
+    // Max. number of feedbacks computed to choose one guess
+    private final long MAX_WORK = 1L << 24;
+
+    // Number of possible guesses scored by a single fork-join task
+    private final int TASK_SIZE = 16;
+
+    // Number of different packed feedback values
+    private static final int FEEDBACKS = (Code.MAX_WIDTH + 1) << Code.BITS;
+
+    private ControlInterface ci;
+    private int width;
+    private int colQuant;
+    private boolean doubleCols;
+
+    // Feedback lookup table, null if the code space is too large
+    private FeedbackTable table;
+
+    // The consistent codes and their indices in the table (or -1)
+    private int[] candidates;
+    private int[] candidateIndices;
+    private int candidateCount;
+
+    // Number of game rows already used to filter the candidates
+    private int rows = 0;
+
+    // The packed guesses and results of these game rows
+    private int[] rowGuesses = new int[0];
+    private int[] rowResults = new int[0];
+
+    // Next code index and end of the scan of the code space, see scanCandidates()
+    private long scanPos = 0;
+    private long scanEnd = 0;
+    private int scanCode = 0;
+
+    // The possible guesses for the current turn
+    private int[] poolCodes;
+    private int[] poolIndices;
+    private boolean[] poolCandidates;
+
+    // End of the time budget of the current guess
+    private Deadline deadline;
+
+    // Initialize the AI with settings from the Mastermind engine
+    // ci - a control interface the AI will use to interact with a game
+    public KnuthSolver(ControlInterface ci) {
+        this.ci = ci;
+        width = ci.getSettingWidth();
+        colQuant = ci.getSettingColQuant();
+        doubleCols = ci.getSettingDoubleCols();
+        table = FeedbackTable.get(width, colQuant, doubleCols);
+    }
+
+    /*
+     * Do a full guess on the Mastermind engine
+     * This includes to generate a guess, pass it to the engine and do a full game turn
+     *
+     * return:
+     * -1 = Game ended and code was not broken
+     *  1 = Game ended an code was broken
+     *  0 = Just a normal turn or the game already ended
+     *  see ControlInterface.turn()
+     */
+    public int makeGuess() {
+        Row guess = generateGuess();
+        ci.writeToGameField(guess.getColors());
+        return ci.turn();
+    }
+
+    /*
+     * Generate the minimax guess for the current game state
+     * The first guess is a fixed opening (like Knuth's 1122).
+     * return: the guess
+     */
+    public Row generateGuess() {
+        return generateGuess(null).getRow();
+    }
+
+    /*
+     * Generate the minimax guess for the current game state within a time budget
+     * If the budget expires while the candidates are collected, the first
+     * candidate found (or the next legal code not played yet) is played and
+     * the scan continues with the next call.
+     * If it expires while the partitions are counted, the best guess scored
+     * so far is played.
+     * budget - the max. time to spend, null for no limit
+     * return: the guess, consistent if it is one of the candidates
+     */
+    public Guess generateGuess(Duration budget) {
+        return generateGuess(budget, null);
+    }
+
+    /*
+     * Generate the minimax guess within a time budget that can be cancelled
+     * The token is checked like the budget, while the candidates are
+     * collected and while the partitions are counted.
+     * budget - the max. time to spend, null for no limit
+     * token - the cancellation token, null if the guess can't be cancelled
+     * return: the guess, consistent if it is one of the candidates
+     */
+    public Guess generateGuess(Duration budget, CancellationToken token) {
+        deadline = new Deadline(budget, token);
+        if (updateCandidates() == false) {
+            Debug.dbgPrint("AI: Time budget expired while collecting candidates");
+            if (candidateCount > 0) {
+                return new Guess(Code.toRow(candidates[0], width), true);
+            }
+            // No candidate yet, at least play a new legal code
+            return new Guess(Code.toRow(unplayedCode(scanCode), width), false);
+        }
+        if (rows == 0) {
+            return new Guess(Code.toRow(opening(), width), true);
+        }
+        if (candidateCount == 0) {
+            Debug.errorPrint("AI: No code is consistent with the results");
+            return new Guess(Code.toRow(opening(), width), false);
+        }
+        if (candidateCount == 1) {
+            return new Guess(Code.toRow(candidates[0], width), true);
+        }
+        preparePool();
+        long best = ForkJoinPool.commonPool().invoke(
+                new PartitionTask(0, poolCodes.length));
+        if (best == Long.MAX_VALUE) {
+            Debug.dbgPrint("AI: Time budget expired before a guess was scored");
+            return new Guess(Code.toRow(candidates[0], width), true);
+        }
+        int pos = (int) (best & Integer.MAX_VALUE);
+        int guess = poolCodes[pos];
+        Debug.dbgPrint("AI: " + candidateCount + " candidates, worst case "
+                + (best >>> 32) + ", guess is " + Code.toRow(guess, width));
+        return new Guess(Code.toRow(guess, width), poolCandidates[pos]);
+    }
+
+    /*
+     * The opening guess
+     * Two positions per color (0, 0, 1, 1, ...) if duplicates are allowed,
+     * different colors (0, 1, 2, ...) otherwise.
+     * return: the packed opening guess
+     */
+    private int opening() {
+        int code = 0;
+        for (int i = 0; i < width; i++) {
+            code = Code.set(code, i, (doubleCols ? i / 2 : i) % colQuant);
+        }
+        return code;
+    }
+
+    /*
+     * Filter the candidates with the game rows played since the last call
+     * On the first call after the first turn the whole code space is scanned.
+     * If the game has fewer rows or other rows than before (a new or loaded
+     * game), the candidates are dropped and the scan starts over.
+     * return: false if the time budget expired during the scan, true otherwise
+     */
+    private boolean updateCandidates() {
+        int active = ci.getActiveRowNumber();
+        if (isSameGame(active) == false) {
+            candidates = null;
+            candidateIndices = null;
+            candidateCount = 0;
+            rows = 0;
+            rowGuesses = new int[0];
+            rowResults = new int[0];
+            scanPos = 0;
+            scanEnd = 0;
+            scanCode = 0;
+        }
+        if (active != rows) {
+            if (candidates != null) {
+                for (int r = rows; r < active; r++) {
+                    filterCandidates(Code.of(ci.getGameFieldRow(r)),
+                            Code.feedback(ci.getResultRow(r)));
+                }
+            }
+            rows = active;
+            rowGuesses = new int[active];
+            rowResults = new int[active];
+            for (int r = 0; r < active; r++) {
+                rowGuesses[r] = Code.of(ci.getGameFieldRow(r));
+                rowResults[r] = Code.feedback(ci.getResultRow(r));
+            }
+            if (candidates == null) {
+                long space = table != null ? table.size()
+                        : Code.spaceSize(width, colQuant);
+                candidates = new int[(int) Math.min(space, 1 << 16)];
+                candidateIndices = new int[candidates.length];
+                candidateCount = 0;
+                scanPos = 0;
+                scanEnd = space;
+                scanCode = 0;
+            }
+        }
+        return scanCandidates();
+    }
+
+    /*
+     * Checks if the rows used so far are still the first rows of the game
+     * active - the number of rows of the game
+     * return: false if the game was replaced (e.g. a new or loaded game)
+     */
+    private boolean isSameGame(int active) {
+        if (active < rows) {
+            return false;
+        }
+        for (int r = 0; r < rows; r++) {
+            if (rowGuesses[r] != Code.of(ci.getGameFieldRow(r))
+                    || rowResults[r] != Code.feedback(ci.getResultRow(r))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Collect the codes of the code space consistent with the game rows
+     * The scan can be interrupted by the time budget, which is checked every
+     * 4096 codes. It continues where it stopped with the next call, the
+     * candidates found so far are filtered with new game rows meanwhile.
+     * return: false if the time budget expired, true if the scan is complete
+     */
+    private boolean scanCandidates() {
+        while (scanPos < scanEnd) {
+            if (table != null) {
+                scanCode = table.code((int) scanPos);
+            } else if (scanPos > 0) {
+                scanCode = Code.next(scanCode, width, colQuant);
+            }
+            scanPos++;
+            if ((doubleCols == true || Code.containsDoubleCols(scanCode, width) == false)
+                    && isConsistent(scanCode, rowGuesses, rowResults)) {
+                if (candidateCount == candidates.length) {
+                    candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                    candidateIndices = Arrays.copyOf(candidateIndices,
+                            candidateCount * 2);
+                }
+                candidateIndices[candidateCount] = table != null
+                        ? table.indexOf(scanCode) : -1;
+                candidates[candidateCount++] = scanCode;
+            }
+            if ((scanPos & 0xFFF) == 0 && deadline.isExpired()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * The first legal code from a code on that wasn't played yet
+     * Legal means without duplicate colors if they are not allowed.
+     * code - the packed code to start with
+     * return: the packed code
+     */
+    private int unplayedCode(int code) {
+        long space = Code.spaceSize(width, colQuant);
+        for (long n = 0; n < space; n++) {
+            if ((doubleCols == true || Code.containsDoubleCols(code, width) == false)
+                    && isPlayed(code) == false) {
+                return code;
+            }
+            code = Code.next(code, width, colQuant);
+        }
+        return code;
+    }
+
+    // Checks if a code is one of the guesses of the game rows
+    private boolean isPlayed(int code) {
+        for (int r = 0; r < rows; r++) {
+            if (rowGuesses[r] == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Checks a code against all given guesses and results
+    private boolean isConsistent(int code, int[] guesses, int[] results) {
+        for (int r = 0; r < guesses.length; r++) {
+            if (Score.compare(guesses[r], code, width) != results[r]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Remove the candidates that are not consistent with a new game row
+     * The candidates stay in order.
+     * guess - the packed guess of the row
+     * result - the packed feedback of the row
+     */
+    private void filterCandidates(int guess, int result) {
+        int n = 0;
+        for (int c = 0; c < candidateCount; c++) {
+            if (Score.compare(guess, candidates[c], width) == result) {
+                candidates[n] = candidates[c];
+                candidateIndices[n++] = candidateIndices[c];
+            }
+        }
+        candidateCount = n;
+    }
+
+    /*
+     * Choose the possible guesses for this turn
+     * All codes of the feedback table if the work fits into MAX_WORK,
+     * otherwise the candidates, thinned out until the work fits.
+     */
+    private void preparePool() {
+        if (table != null && (long) table.size() * candidateCount <= MAX_WORK) {
+            boolean[] isCandidate = new boolean[table.size()];
+            for (int c = 0; c < candidateCount; c++) {
+                isCandidate[candidateIndices[c]] = true;
+            }
+            poolCodes = new int[table.size()];
+            poolIndices = new int[table.size()];
+            poolCandidates = isCandidate;
+            for (int g = 0; g < poolCodes.length; g++) {
+                poolCodes[g] = table.code(g);
+                poolIndices[g] = g;
+            }
+            return;
+        }
+        long stride = ((long) candidateCount * candidateCount + MAX_WORK - 1)
+                / MAX_WORK;
+        int size = (int) ((candidateCount + stride - 1) / stride);
+        poolCodes = new int[size];
+        poolIndices = new int[size];
+        poolCandidates = new boolean[size];
+        for (int g = 0; g < size; g++) {
+            poolCodes[g] = candidates[(int) (g * stride)];
+            poolIndices[g] = candidateIndices[(int) (g * stride)];
+            poolCandidates[g] = true;
+        }
+    }
+
+    /*
+     * Counts the partitions of a range of possible guesses.
+     * Splits itself until the range is at most TASK_SIZE guesses.
+     * The result is the key of the best guess in the range:
+     * worst-case partition size in the upper 32 bits, then one bit that is
+     * set for non-candidates, then the position of the guess in the pool.
+     * The smallest key is the best guess.
+     * When the time budget expires the remaining guesses are skipped,
+     * Long.MAX_VALUE is the result of a range without scored guesses.
+     */
+    private class PartitionTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        PartitionTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from > TASK_SIZE) {
+                int mid = (from + to) >>> 1;
+                PartitionTask left = new PartitionTask(from, mid);
+                left.fork();
+                long right = new PartitionTask(mid, to).compute();
+                return Math.min(left.join(), right);
+            }
+            int[] counts = new int[FEEDBACKS];
+            long best = Long.MAX_VALUE;
+            for (int g = from; g < to; g++) {
+                if (deadline.isExpired()) {
+                    break;
+                }
+                Arrays.fill(counts, 0);
+                int worst = 0;
+                for (int c = 0; c < candidateCount; c++) {
+                    int f = feedback(g, c);
+                    if (++counts[f] > worst) {
+                        worst = counts[f];
+                        // Can't beat the best guess of this range anymore
+                        if (((long) worst << 32) > best) {
+                            break;
+                        }
+                    }
+                }
+                long key = ((long) worst << 32)
+                        | (poolCandidates[g] ? 0 : 1L << 31) | g;
+                best = Math.min(best, key);
+            }
+            return best;
+        }
+
+        // The feedback of a possible guess if a candidate was the secret code
+        private int feedback(int g, int c) {
+            if (poolIndices[g] >= 0 && candidateIndices[c] >= 0) {
+                return table.feedback(poolIndices[g], candidateIndices[c]);
+            }
+            return Score.compare(poolCodes[g], candidates[c], width);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ai;
+
+
+/*
+ * Receives the progress of a running guess generation.
+ * See GeneticSolver.setProgressListener(ProgressListener) and
+ * IslandSolver.setProgressListener(ProgressListener).
+ *
+ * The listener is called on the thread that generates the guess, which
+ * is not the Swing event dispatch thread if the solver runs in the
+ * background. It is called often, so it should return quickly.
+ */
+
+public interface ProgressListener {
+    /*
+     * Called after a step of the search
+     * generation - the number of generations created for the current guess
+     * bestFitness - the fitness of the fittest code so far, 0 is consistent
+     * feasibleCount - the number of feasible codes found so far
+     */
+    void progress(int generation, int bestFitness, int feasibleCount);
+}
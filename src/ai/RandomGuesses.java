@@ -3,6 +3,8 @@ package ai;
 import common.*;
 import game.ControlInterface;
 
+import java.time.Duration;
+
 
 // A "solving algorithm" that makes random guesses
 public class RandomGuesses implements SolvingAlgorithm{
@@ -25,13 +27,27 @@ public class RandomGuesses implements SolvingAlgorithm{
     // All colors available in the game
     Color[] allCols;
 
+    // The random number generator
+    private Rng rnd;
+
     /*
      * Initialize the AI with settings from the Mastermind engine
      * ci - a control interface the AI will use to
      * interact with a game
      */
     public RandomGuesses(ControlInterface ci){
+        this(ci, Rng.create());
+    }
+
+    /*
+     * Initialize the AI with settings from the Mastermind engine
+     * ci - a control interface the AI will use to
+     * interact with a game
+     * rnd - the random number generator to use
+     */
+    public RandomGuesses(ControlInterface ci, Rng rnd){
         this.ci = ci;
+        this.rnd = rnd;
         width = ci.getSettingWidth();
         colQuant = ci.getSettingColQuant();
         duplicates = ci.getSettingDoubleCols();
@@ -67,7 +83,7 @@ public class RandomGuesses implements SolvingAlgorithm{
 
         int i = 0;
         while (i < width) {
-            Color now = allowedCols[(int) (Math.random() * colQuant)];
+            Color now = allowedCols[rnd.nextInt(colQuant)];
             if (guess.containsCol(now) > 0) {
                 if (duplicates == true) {
                     guess.setColAtPos(i++, now);
@@ -78,4 +94,30 @@ public class RandomGuesses implements SolvingAlgorithm{
         }
         return guess;
     }
+
+    /*
+     * Generating a totally random guess ignoring previous results
+     * The guess is checked against the previous results within the budget.
+     * budget - the max. time to spend, null for no limit
+     * return: the guess, checked against the previous results
+     */
+    public Guess generateGuess(Duration budget){
+        return generateGuess(budget, null);
+    }
+
+    /*
+     * Generating a totally random guess ignoring previous results
+     * The guess is checked with the candidate set of the game if it can be
+     * built within the budget, otherwise against the played rows. So the
+     * check doesn't take longer than the budget, apart from scoring the rows.
+     * budget - the max. time to spend, null for no limit
+     * token - the cancellation token, null if the guess can't be cancelled
+     * return: the guess, checked against the previous results
+     */
+    public Guess generateGuess(Duration budget, CancellationToken token){
+        Deadline deadline = new Deadline(budget, token);
+        Row guess = generateGuess();
+        return new Guess(guess,
+                Clues.isFeasible(ci, guess, deadline::isExpired));
+    }
 }
@@ -0,0 +1,182 @@
+package ai;
+
+import common.Rng;
+import game.ControlInterface;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+
+/*
+ * A headless batch runner that plays many games with a solving algorithm.
+ * Used to compare the solving algorithms without the GUI.
+ *
+ * The games are split into batches which are played in parallel on a
+ * fork-join pool. Every batch has its own control interface (with a copy of
+ * the settings) and its own random number generator. The secret codes are
+ * generated locally, so with a seeded Rng the same games are played
+ * independent of the thread scheduling.
+ *
+ * The result of every game is passed on as soon as the game ended.
+ *
+ * Example:
+ * new Simulation(ci, (c, rnd) -> new GeneticSolver(c, ForkJoinPool.commonPool(), rnd))
+ *         .run(100000, result -> System.out.println(result));
+ */
+public class Simulation {
+
+    // Max. number of batches per thread of the pool
+    private final int BATCHES_PER_THREAD = 8;
+
+    // The control interface holding the settings of the games
+    private ControlInterface settings;
+
+    // Creates a solver for a game, gets the game and a random number generator
+    private BiFunction<ControlInterface, Rng, SolvingAlgorithm> factory;
+
+    // The fork-join pool the games are played on
+    private ForkJoinPool pool;
+
+    // Random number generator, split for every batch
+    private Rng rnd;
+
+    /*
+     * Initialize a simulation on the common fork-join pool
+     * settings - a control interface with the settings of the games
+     * factory - creates a solver for a game
+     */
+    public Simulation(ControlInterface settings,
+                      BiFunction<ControlInterface, Rng, SolvingAlgorithm> factory) {
+        this(settings, factory, ForkJoinPool.commonPool(), Rng.create());
+    }
+
+    /*
+     * Initialize a simulation
+     * settings - a control interface with the settings of the games
+     * factory - creates a solver for a game
+     * pool - the fork-join pool the games are played on
+     * rnd - the random number generator for the secret codes and solvers
+     */
+    public Simulation(ControlInterface settings,
+                      BiFunction<ControlInterface, Rng, SolvingAlgorithm> factory,
+                      ForkJoinPool pool, Rng rnd) {
+        this.settings = settings;
+        this.factory = factory;
+        this.pool = pool;
+        this.rnd = rnd;
+    }
+
+    /*
+     * Play a number of games
+     * Returns when all games are played.
+     * games - the number of games
+     * results - gets the result of every game as soon as it ended. It is called
+     * from the threads of the pool, but never by two threads at the same time.
+     */
+    public void run(int games, Consumer<GameResult> results) {
+        if (games <= 0) {
+            return;
+        }
+        int batches = Math.min(games, pool.getParallelism() * BATCHES_PER_THREAD);
+        int batchSize = (games + batches - 1) / batches;
+        batches = (games + batchSize - 1) / batchSize;
+        // Split the generators in order, so they don't depend on the scheduling
+        Rng[] generators = new Rng[batches];
+        for (int b = 0; b < batches; b++) {
+            generators[b] = rnd.split();
+        }
+        pool.invoke(new BatchAction(generators, batchSize, games, results,
+                0, batches));
+    }
+
+    /*
+     * Play the games of a batch
+     * rnd - the random number generator of the batch
+     * from - the number of the first game
+     * to - the number of the last game + 1
+     * results - gets the result of every game
+     */
+    private void playBatch(Rng rnd, int from, int to,
+                           Consumer<GameResult> results) {
+        ControlInterface ci = new ControlInterface(settings, rnd);
+        for (int game = from; game < to; game++) {
+            if (game > from) {
+                ci.newGame(rnd);
+            }
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            SolvingAlgorithm solver = factory.apply(ci, rnd.split());
+            int state = 0;
+            while (state == 0 && ci.getGameEnded() == false) {
+                state = solver.makeGuess();
+            }
+            long nanos = System.nanoTime() - start;
+            if (bytes >= 0) {
+                bytes = allocatedBytes() - bytes;
+            }
+            GameResult result = new GameResult(game, ci.getActiveRowNumber(),
+                    state == 1, nanos, bytes);
+            synchronized (results) {
+                results.accept(result);
+            }
+        }
+    }
+
+    /*
+     * The number of bytes allocated by the current thread so far
+     * return: the number of bytes, -1 if the JVM can't measure it
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean =
+                    (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported()
+                    && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(
+                        Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    // Plays a range of batches, splitting until one batch is left
+    private class BatchAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Rng[] generators;
+        private final int batchSize;
+        private final int games;
+        private final Consumer<GameResult> results;
+        private final int low;
+        private final int up;
+
+        BatchAction(Rng[] generators, int batchSize, int games,
+                    Consumer<GameResult> results, int low, int up) {
+            this.generators = generators;
+            this.batchSize = batchSize;
+            this.games = games;
+            this.results = results;
+            this.low = low;
+            this.up = up;
+        }
+
+        @Override
+        protected void compute() {
+            if (up - low == 1) {
+                playBatch(generators[low], low * batchSize,
+                        Math.min((low + 1) * batchSize, games), results);
+                return;
+            }
+            int mid = (low + up) >>> 1;
+            invokeAll(new BatchAction(generators, batchSize, games, results,
+                            low, mid),
+                    new BatchAction(generators, batchSize, games, results,
+                            mid, up));
+        }
+    }
+}
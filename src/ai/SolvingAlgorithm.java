@@ -2,6 +2,8 @@ package ai;
 
 import common.Row;
 
+import java.time.Duration;
+
 
 /*
  * This interface describes how a solving algorithm has to be implemented.
@@ -12,8 +14,11 @@ import common.Row;
  * AI (artificial intelligence) can take up to several minutes, especially if you
  * have set a high width, many colors or when you run the game on a slow computer.
  * This is not a bug, just a side effect of the complex algorithm the AI is using.
- * While the AI is guessing, the GUI is locked. Please stand by until the AI broke
- * the code or the maximum number of tries is reached.
+ * The GUI computes the guesses in the background and shows the progress of the
+ * search. Please stand by until the AI broke the code or the maximum number of
+ * tries is reached.
+ * Use generateGuess(Duration) for an upper bound of the time a guess takes,
+ * and generateGuess(Duration, CancellationToken) to stop it from another thread.
  *
  * see ControlInterface
  */
@@ -30,4 +35,25 @@ public interface SolvingAlgorithm {
      * return: the row that was guessed
      */
     Row generateGuess();
+
+    /*
+     * Generate a guess within a time budget
+     * When the budget expires, the best guess found so far is returned.
+     * The budget is checked between steps of the algorithm, so it can be
+     * exceeded by the time of one step.
+     * budget - the max. time to spend, null for no limit
+     * return: the guess and whether it is consistent with all previous results
+     */
+    Guess generateGuess(Duration budget);
+
+    /*
+     * Generate a guess within a time budget that can be cancelled
+     * The token is checked together with the budget. Once it is cancelled,
+     * the search stops like with an expired budget and the guess returned
+     * should be discarded.
+     * budget - the max. time to spend, null for no limit
+     * token - the cancellation token, null if the guess can't be cancelled
+     * return: the guess and whether it is consistent with all previous results
+     */
+    Guess generateGuess(Duration budget, CancellationToken token);
 }
\ No newline at end of file
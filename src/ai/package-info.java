@@ -6,18 +6,31 @@ package ai;
  * AI (artificial intelligence) can take up to several minutes, especially if you
  * have set a high width, many colors or when you run the game on a slow computer.
  * This is not a bug, just a side effect of the complex algorithm the AI is using.
- * While the AI is guessing, the GUI is locked. Please stand by until the AI broke
- * the code or the maximum number of tries is reached.
+ * The GUI computes the guesses in the background and shows the progress of the
+ * search. Please stand by until the AI broke the code or the maximum number of
+ * tries is reached.
  *
  * Bruteforce:
  * A solving algorithm using the Brute-force search technique.
  * See http://en.wikipedia.org/wiki/Brute-force_search
  * Brute-force search algorithm on Wikipedia.
+ * Plays the next code in index order that is consistent with the results.
+ *
+ * CancellationToken:
+ * Stops a running guess generation from another thread, e.g. when the
+ * user starts a new game.
  *
  * Clues:
  * Checks if the guess is valid or makes no sense in context
  * of previous guesses and results.
  *
+ * FeedbackTable:
+ * A precomputed table of the feedback for every pair of codes.
+ * Used instead of computed scoring if the code space is small enough.
+ *
+ * GameResult:
+ * The result of one game of a simulation (tries, time, allocated bytes).
+ *
  * GeneticSolver:
  * A genetic solving algorithm.
  * This implementation is a slightly modified version of the one in the paper:
@@ -26,9 +39,31 @@ package ai;
  * For more information on genetic algorithms see:
  * http://en.wikipedia.org/wiki/Genetic_algorithm
  *
+ * Guess:
+ * The result of a time-bounded guess generation. Holds the guess and
+ * whether it is consistent with all previous results.
+ *
+ * IslandSolver:
+ * An island-model variant of the genetic solving algorithm.
+ * Several populations evolve in parallel and exchange their fittest codes
+ * every few generations.
+ *
+ * KnuthSolver:
+ * A deterministic solving algorithm using Knuth's minimax strategy.
+ * The guess with the smallest worst-case partition of the remaining
+ * candidates is played. Partitions are counted in parallel on a fork-join pool.
+ *
+ * ProgressListener:
+ * Receives the progress of a running guess generation (generation number,
+ * best fitness and number of feasible codes).
+ *
  * RandomGuesses:
  * A "solving algorithm" that makes random guesses.
  *
+ * Simulation:
+ * A headless batch runner that plays many games with a solving algorithm
+ * in parallel and passes on the result of every game.
+ *
  * SolvingAlgorithm:
  * This interface describes how a solving algorithm has to be implemented.
  * It has to be able to generate a valid guess. Normally based on previous guesses.
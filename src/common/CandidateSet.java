@@ -0,0 +1,223 @@
+package common;
+
+import java.util.function.BooleanSupplier;
+
+/*
+ * The set of codes that are still consistent with all results of a game.
+ * A code c is a candidate if it results in the same feedback for all
+ * guesses k that have been played up till that stage, if c was the secret code.
+ *
+ * The set is a bitset over the code space, one bit per index
+ * (see Code.index(int, int, int)). It starts with all codes (without
+ * duplicate colors if they are not allowed) and is filtered once for every
+ * new result. Membership queries are then O(1).
+ *
+ * Building and filtering a large set takes a while (about a second for
+ * 8 positions and 8 colors), so both can also be done in steps of words
+ * that stop early, see init(int, BooleanSupplier) and
+ * filter(int, int, int, BooleanSupplier).
+ */
+public class CandidateSet {
+
+    // Max. size of the code space (16M codes, 2 MB of bits)
+    public static final long MAX_SPACE = 1L << 24;
+
+    private final int width;
+    private final int colQuant;
+    private final boolean doubleCols;
+
+    // One bit per code index
+    private final long[] bits;
+
+    // Number of set bits
+    private int size;
+
+    // Number of words done between two checks of the stop condition
+    private static final int CHUNK_WORDS = 256;
+
+    // Stop condition that never stops
+    private static final BooleanSupplier NEVER = () -> false;
+
+    /*
+     * Creates a set with all codes of the code space
+     * width - the width of a code
+     * colQuant - the quantity of colors
+     * doubleCols - allowance of duplicate colors
+     * return: the set, null if the code space is larger than MAX_SPACE
+     */
+    public static CandidateSet create(int width, int colQuant,
+                                      boolean doubleCols) {
+        CandidateSet set = allocate(width, colQuant, doubleCols);
+        if (set != null) {
+            set.init(0, NEVER);
+        }
+        return set;
+    }
+
+    /*
+     * Creates an empty set, to be filled with init(int, BooleanSupplier)
+     * width - the width of a code
+     * colQuant - the quantity of colors
+     * doubleCols - allowance of duplicate colors
+     * return: the set, null if the code space is larger than MAX_SPACE
+     */
+    public static CandidateSet allocate(int width, int colQuant,
+                                        boolean doubleCols) {
+        if (Code.spaceSize(width, colQuant) > MAX_SPACE) {
+            return null;
+        }
+        return new CandidateSet(width, colQuant, doubleCols);
+    }
+
+    private CandidateSet(int width, int colQuant, boolean doubleCols) {
+        this.width = width;
+        this.colQuant = colQuant;
+        this.doubleCols = doubleCols;
+        int space = (int) Code.spaceSize(width, colQuant);
+        bits = new long[(space + 63) >>> 6];
+    }
+
+    private CandidateSet(CandidateSet other) {
+        width = other.width;
+        colQuant = other.colQuant;
+        doubleCols = other.doubleCols;
+        bits = other.bits.clone();
+        size = other.size;
+    }
+
+    // Copy of the set, filtering the copy doesn't change this set
+    public CandidateSet copy() {
+        return new CandidateSet(this);
+    }
+
+    // Number of 64 bit words, the steps of init() and filter()
+    public int words() {
+        return bits.length;
+    }
+
+    /*
+     * Add all codes of the code space to an allocated set, starting at a word
+     * The stop condition is checked before every few hundred words.
+     * fromWord - the first word to fill, 0 for a new set
+     * stop - returns true if the work should be interrupted
+     * return: the next word to fill, words() if the set is complete
+     */
+    public int init(int fromWord, BooleanSupplier stop) {
+        int space = (int) Code.spaceSize(width, colQuant);
+        int w = fromWord;
+        while (w < bits.length && stop.getAsBoolean() == false) {
+            int end = Math.min(w + CHUNK_WORDS, bits.length);
+            if (doubleCols) {
+                for (; w < end; w++) {
+                    int left = space - (w << 6);
+                    bits[w] = left >= 64 ? -1L : (1L << left) - 1;
+                    size += Long.bitCount(bits[w]);
+                }
+            } else {
+                int i = w << 6;
+                int last = Math.min(end << 6, space);
+                int code = Code.fromIndex(i, width, colQuant);
+                for (; i < last; i++) {
+                    if (Code.containsDoubleCols(code, width) == false) {
+                        bits[i >>> 6] |= 1L << i;
+                        size++;
+                    }
+                    code = Code.next(code, width, colQuant);
+                }
+                w = end;
+            }
+        }
+        return w;
+    }
+
+    /*
+     * Checks if the set was created for the given settings
+     * return: true if the settings match, false otherwise
+     */
+    public boolean matches(int width, int colQuant, boolean doubleCols) {
+        return this.width == width && this.colQuant == colQuant
+                && this.doubleCols == doubleCols;
+    }
+
+    /*
+     * Remove all codes that are not consistent with a new result
+     * guess - the packed guess
+     * feedback - the packed feedback the guess got
+     */
+    public void filter(int guess, int feedback) {
+        filter(guess, feedback, 0, NEVER);
+    }
+
+    /*
+     * Remove all codes that are not consistent with a new result,
+     * starting at a word
+     * The stop condition is checked before every few hundred words.
+     * guess - the packed guess
+     * feedback - the packed feedback the guess got
+     * fromWord - the first word to filter, 0 for the whole set
+     * stop - returns true if the work should be interrupted
+     * return: the next word to filter, words() if the result is applied
+     */
+    public int filter(int guess, int feedback, int fromWord,
+                      BooleanSupplier stop) {
+        // Index and code of the last visited candidate
+        int index = -2;
+        int code = 0;
+        int w = fromWord;
+        while (w < bits.length && stop.getAsBoolean() == false) {
+            int end = Math.min(w + CHUNK_WORDS, bits.length);
+            for (; w < end; w++) {
+                long word = bits[w];
+                while (word != 0) {
+                    int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    // Step to the next code cheaply if the indices are adjacent
+                    code = (i == index + 1) ? Code.next(code, width, colQuant)
+                            : Code.fromIndex(i, width, colQuant);
+                    index = i;
+                    if (Score.compare(guess, code, width) != feedback) {
+                        bits[w] &= ~(1L << i);
+                        size--;
+                    }
+                }
+            }
+        }
+        return w;
+    }
+
+    /*
+     * Checks if a code is still a candidate
+     * code - the packed code
+     * return: true if the code is consistent with all results, false otherwise
+     */
+    public boolean contains(int code) {
+        int i = Code.index(code, width, colQuant);
+        return i >= 0 && (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    // Number of candidates
+    public int size() {
+        return size;
+    }
+
+    /*
+     * Get the n-th candidate in index order
+     * n - the number of the candidate, between 0 and size()-1
+     * return: the packed code, -1 if there is no such candidate
+     */
+    public int get(int n) {
+        for (int w = 0; w < bits.length; w++) {
+            int count = Long.bitCount(bits[w]);
+            if (n < count) {
+                long word = bits[w];
+                for (int k = 0; k < n; k++) {
+                    word &= word - 1;
+                }
+                return Code.fromIndex((w << 6) + Long.numberOfTrailingZeros(word),
+                        width, colQuant);
+            }
+            n -= count;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,225 @@
+package common;
+
+
+/*
+ * Packed primitive representation of a code (a Row of colors).
+ * A code is stored in a single int, 4 bits per position. The color at
+ * position i is kept in bits 4*i to 4*i+3 as the ordinal of the Color enum.
+ * With a maximum width of 8 a code fits exactly into 32 bits.
+ *
+ * The solvers and the game engine use this representation for scoring,
+ * so no arrays have to be allocated and no enums have to be dereferenced.
+ * Row is only used at the GUI/serialization boundary, see of(Row) and toRow(int, int).
+ */
+public final class Code {
+
+    // Number of bits used for one position
+    public static final int BITS = 4;
+
+    // Mask for a single position
+    public static final int MASK = (1 << BITS) - 1;
+
+    // Maximum width of a packed code
+    public static final int MAX_WIDTH = Integer.SIZE / BITS;
+
+    // All colors, cached to avoid the copy made by Color.values()
+    private static final Color[] COLORS = Color.values();
+
+    private Code() {}
+
+    /*
+     * Pack a Row into a code
+     * row - the Row to pack
+     * return: the packed code
+     */
+    public static int of(Row row) {
+        return of(row.getColors());
+    }
+
+    /*
+     * Pack an array of colors into a code
+     * colors - the colors to pack (at most MAX_WIDTH)
+     * return: the packed code
+     */
+    public static int of(Color[] colors) {
+        int code = 0;
+        for (int i = 0; i < colors.length; i++) {
+            code |= colors[i].ordinal() << (i * BITS);
+        }
+        return code;
+    }
+
+    /*
+     * Unpack a code into a new Row
+     * code - the packed code
+     * width - the width of the code
+     * return: a Row holding the colors of the code
+     */
+    public static Row toRow(int code, int width) {
+        Color[] colors = new Color[width];
+        for (int i = 0; i < width; i++) {
+            colors[i] = COLORS[get(code, i)];
+        }
+        return new Row(colors);
+    }
+
+    /*
+     * Get the color index at a specific position
+     * code - the packed code
+     * pos - the position
+     * return: the ordinal of the color at the position
+     */
+    public static int get(int code, int pos) {
+        return (code >>> (pos * BITS)) & MASK;
+    }
+
+    /*
+     * Set the color index at a specific position
+     * code - the packed code
+     * pos - the position
+     * col - the ordinal of the color to set
+     * return: the new code
+     */
+    public static int set(int code, int pos, int col) {
+        int shift = pos * BITS;
+        return (code & ~(MASK << shift)) | (col << shift);
+    }
+
+    /*
+     * Number of codes in the code space (duplicates allowed)
+     * width - the width of a code
+     * colQuant - the quantity of colors
+     * return: colQuant^width
+     */
+    public static long spaceSize(int width, int colQuant) {
+        long size = 1;
+        for (int i = 0; i < width; i++) {
+            size *= colQuant;
+        }
+        return size;
+    }
+
+    /*
+     * Index of a code in the code space
+     * The code is read as a mixed-radix number with base colQuant,
+     * position 0 being the least significant digit.
+     * code - the packed code
+     * width - the width of the code
+     * colQuant - the quantity of colors
+     * return: the index, -1 if a color of the code is not below colQuant
+     */
+    public static int index(int code, int width, int colQuant) {
+        int index = 0;
+        for (int i = width - 1; i >= 0; i--) {
+            int col = get(code, i);
+            if (col >= colQuant) {
+                return -1;
+            }
+            index = index * colQuant + col;
+        }
+        return index;
+    }
+
+    /*
+     * The code at an index of the code space
+     * index - the index, see index(int, int, int)
+     * width - the width of the code
+     * colQuant - the quantity of colors
+     * return: the packed code
+     */
+    public static int fromIndex(int index, int width, int colQuant) {
+        int code = 0;
+        for (int i = 0; i < width; i++) {
+            code = set(code, i, index % colQuant);
+            index /= colQuant;
+        }
+        return code;
+    }
+
+    /*
+     * The code following a code in index order
+     * Increments position 0 and carries over like an odometer,
+     * which is much cheaper than fromIndex(index + 1, ...).
+     * code - the packed code
+     * width - the width of the code
+     * colQuant - the quantity of colors
+     * return: the next code, 0 (the first code) after the last code
+     */
+    public static int next(int code, int width, int colQuant) {
+        for (int i = 0; i < width; i++) {
+            int col = get(code, i) + 1;
+            if (col < colQuant) {
+                return set(code, i, col);
+            }
+            code = set(code, i, 0);
+        }
+        return code;
+    }
+
+    /*
+     * Checks if the same color is inside the code more than once
+     * code - the packed code
+     * width - the width of the code
+     * return: true if a color is found more than once, false if not
+     */
+    public static boolean containsDoubleCols(int code, int width) {
+        int used = 0;
+        for (int i = 0; i < width; i++) {
+            int bit = 1 << get(code, i);
+            if ((used & bit) != 0) {
+                return true;
+            }
+            used |= bit;
+        }
+        return false;
+    }
+
+    /*
+     * Pack the number of black and white pegs into a single feedback value
+     * blacks - number of black pegs
+     * whites - number of white pegs
+     * return: the packed feedback
+     */
+    public static int feedback(int blacks, int whites) {
+        return (blacks << BITS) | whites;
+    }
+
+    /*
+     * Pack a result Row into a feedback value
+     * result - a Row with black, white and null pegs
+     * return: the packed feedback
+     */
+    public static int feedback(Row result) {
+        return feedback(result.containsCol(Color.Black),
+                result.containsCol(Color.White));
+    }
+
+    // Number of black pegs of a packed feedback
+    public static int blacks(int feedback) {
+        return feedback >>> BITS;
+    }
+
+    // Number of white pegs of a packed feedback
+    public static int whites(int feedback) {
+        return feedback & MASK;
+    }
+
+    /*
+     * Unpack a feedback value into a result Row
+     * Black pegs come first, then white pegs, the rest is Null.
+     * feedback - the packed feedback
+     * width - the width of the result Row
+     * return: the result Row
+     */
+    public static Row toResultRow(int feedback, int width) {
+        Row result = new Row(width);
+        int index = 0;
+        for (int i = 0; i < blacks(feedback); i++) {
+            result.setColAtPos(index++, Color.Black);
+        }
+        for (int i = 0; i < whites(feedback); i++) {
+            result.setColAtPos(index++, Color.White);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,114 @@
+package common;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/*
+ * The random number service used by the solvers and the secret code.
+ *
+ * Without a seed every generator draws from ThreadLocalRandom, so there is
+ * no shared state and no contention between threads.
+ * With a seed (setSeed(long) or the system property "mastermind.seed")
+ * every generator is split off a seeded SplittableRandom. The numbers then
+ * only depend on the seed and on the order the generators are created,
+ * which makes benchmark runs deterministic.
+ *
+ * A single generator is not thread-safe. Use split() to get an independent
+ * generator for another thread.
+ */
+public final class Rng {
+
+    // Name of the system property holding the seed
+    public static final String SEED_PROPERTY = "mastermind.seed";
+
+    // The seeded root generator, null if no seed is set
+    private static SplittableRandom root = initRoot();
+
+    // The generator, null to draw from ThreadLocalRandom
+    private final SplittableRandom random;
+
+    /*
+     * Creates a generator with a fixed seed
+     * seed - the seed
+     */
+    public Rng(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private Rng(SplittableRandom random) {
+        this.random = random;
+    }
+
+    // Read the seed from the system property, if any
+    private static SplittableRandom initRoot() {
+        String seed = System.getProperty(SEED_PROPERTY);
+        if (seed == null) {
+            return null;
+        }
+        try {
+            return new SplittableRandom(Long.parseLong(seed.trim()));
+        } catch (NumberFormatException e) {
+            Debug.errorPrint("Invalid " + SEED_PROPERTY + ": " + seed);
+            return null;
+        }
+    }
+
+    /*
+     * Set the global seed
+     * All generators created afterwards by create() depend on this seed.
+     * seed - the seed
+     */
+    public static synchronized void setSeed(long seed) {
+        root = new SplittableRandom(seed);
+    }
+
+    // Remove the global seed, create() returns unseeded generators again
+    public static synchronized void clearSeed() {
+        root = null;
+    }
+
+    /*
+     * Checks if a global seed is set
+     * return: true if the generators are deterministic, false otherwise
+     */
+    public static synchronized boolean isSeeded() {
+        return root != null;
+    }
+
+    /*
+     * Creates a new generator
+     * return: a generator split off the global seed if set, unseeded otherwise
+     */
+    public static synchronized Rng create() {
+        return new Rng(root != null ? root.split() : null);
+    }
+
+    /*
+     * Creates an independent generator, e.g. for another thread
+     * return: the new generator, seeded by this one if it is seeded
+     */
+    public Rng split() {
+        return new Rng(random != null ? random.split() : null);
+    }
+
+    /*
+     * A random number between 0 (inclusive) and bound (exclusive)
+     * bound - the upper bound, must be positive
+     * return: the random number
+     */
+    public int nextInt(int bound) {
+        if (random != null) {
+            return random.nextInt(bound);
+        }
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    // A random long
+    public long nextLong() {
+        if (random != null) {
+            return random.nextLong();
+        }
+        return ThreadLocalRandom.current().nextLong();
+    }
+}
@@ -5,6 +5,9 @@ import java.io.Serializable;
 
 // This class represents a single Row with colors
 public class Row implements Serializable {
+    // Same as the first version, so games saved by it can still be loaded
+    private static final long serialVersionUID = -8802806727977377201L;
+
     // Object variables
     private Color[] colors;
 
@@ -119,7 +122,9 @@ public class Row implements Serializable {
 
     /*
      * Check if the specified object equals this Row
-     * A Row is equal if it contains the same colors at the same positions
+     * A Row is equal if it has the same width and
+     * contains the same colors at the same positions.
+     * Rows without colors are only equal to each other.
      * o - the object to compare with
      * return: true if given object is equal, false otherwise
      */
@@ -131,6 +136,12 @@ public class Row implements Serializable {
         } else {
             return false;
         }
+        if (row.colors == null || this.colors == null) {
+            return row.colors == this.colors;
+        }
+        if (row.width() != this.width()) {
+            return false;
+        }
         for (int i = 0; i < row.width(); i++) {
             if (row.getColAtPos(i) != this.getColAtPos(i)) {
                 return false;
@@ -138,5 +149,22 @@ public class Row implements Serializable {
         }
         return true;
     }
-}
 
+    /*
+     * Hash code consistent with equals()
+     * Built from the ordinals of the colors, so it is the same in every run.
+     * A Row without colors has the hash code 0.
+     * return: the hash code
+     */
+    @Override
+    public int hashCode() {
+        if (colors == null) {
+            return 0;
+        }
+        int hash = 1;
+        for (Color color : colors) {
+            hash = 31 * hash + (color == null ? 0 : color.ordinal() + 1);
+        }
+        return hash;
+    }
+}
@@ -2,7 +2,11 @@ package common;
 
 /**
  * Common classes to interact with the Mastermind engine:
+ * CandidateSet - bitset of the codes that are still consistent with all results of a game.
+ * Code - packed primitive representation of a Row, used by the solvers and the engine for scoring.
  * Color - represents the numbers and colors used in the game engine (bonded together in enum type).
  * Debug - used for debugging, i.e. with a function for debug-output.
+ * Rng - the seedable random number service used by the solvers and the secret code.
+ * Score - the black/white scoring kernel shared by the game engine and the solvers.
  * Row - represents a single Row with numbers.
  */
\ No newline at end of file
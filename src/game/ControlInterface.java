@@ -1,10 +1,14 @@
 package game;
 
+import common.CandidateSet;
+import common.Code;
 import common.Color;
 import common.Debug;
+import common.Rng;
 import common.Row;
 
 import java.io.*;
+import java.util.function.BooleanSupplier;
 
 
 /*
@@ -16,8 +20,8 @@ import java.io.*;
  */
 public class ControlInterface {
     // Class variables
-    // Always create a game first
-    private Game game = new Game(new Settings());
+    // Always create a game first, see the constructors
+    private Game game;
 
     // The file extension for saving
     public final String FILE_EXTENSION = "mm";
@@ -25,6 +29,46 @@ public class ControlInterface {
     // Identifier for loaded games
     private boolean loaded = false;
 
+    // Prepares the secret code of the next game, see newGame()
+    private SecretCodePipeline pipeline;
+
+    // Codes consistent with the results of the first candidateRows rows,
+    // see getCandidates(BooleanSupplier)
+    private CandidateSet candidates;
+    private int candidateRows;
+
+    // The set that is being built, null if there is none.
+    // buildRows is the number of rows it is filtered with, -1 while the
+    // codes are added, and buildWord the next word of the current step.
+    // buildBusy is true while a thread works on it.
+    private CandidateSet building;
+    private int buildRows;
+    private int buildWord;
+    private boolean buildBusy;
+
+    // Counts the games, so sets built for a replaced game are dropped
+    private int generation;
+
+    // Create a control interface with a new game with the default settings
+    public ControlInterface() {
+        game = new Game(new Settings());
+        pipeline = new SecretCodePipeline();
+        pipeline.prepare(game.settings);
+    }
+
+    /*
+     * Create a control interface for headless games, e.g. simulations
+     * The new game has a copy of the settings of another control interface
+     * and a locally generated secret code, see newGame(Rng).
+     * Changes of the settings don't affect the other control interface.
+     *
+     * other - the control interface to copy the settings from
+     * rnd - the random number generator for the secret code
+     */
+    public ControlInterface(ControlInterface other, Rng rnd) {
+        game = new Game(other.game.settings.copy(), rnd);
+    }
+
     // Getter for the active Row number
     // return: the active Row number
     public int getActiveRowNumber() {
@@ -41,13 +85,132 @@ public class ControlInterface {
      *  1 = Game ended an code was broken
      *  0 = Just a normal turn or game already ended
      */
-    public int turn() {
+    public synchronized int turn() {
         if (getGameEnded() == false) {
             return game.turn();
         }
         return 0;
     }
 
+    /*
+     * Get the set of codes that are consistent with all results so far
+     * The set is built on the first call and then filtered with the new
+     * results on the next calls.
+     * return: the candidates, null if the code space is too large or
+     *         another thread is building the set
+     * see common.CandidateSet
+     */
+    public CandidateSet getCandidates() {
+        return getCandidates(() -> false);
+    }
+
+    /*
+     * Get the set of codes that are consistent with all results so far,
+     * or stop early
+     * Building the set for a large code space takes a while. If the stop
+     * condition becomes true, the work done so far is kept and the next
+     * call continues it, so the set becomes available over a few calls
+     * with short time budgets.
+     * The method can be called from any thread, e.g. by an AI running in
+     * the background. A returned set is never changed afterwards, new
+     * results are applied to a copy. The work is done without holding the
+     * lock, a thread that finds another thread building the set doesn't
+     * wait for it but gets null.
+     * stop - returns true if the caller can't wait any longer
+     * return: the candidates, null if the code space is too large,
+     *         the set isn't complete yet or another thread is building it
+     * see common.CandidateSet
+     */
+    public CandidateSet getCandidates(BooleanSupplier stop) {
+        CandidateSet set;
+        int rows;
+        int step;
+        int word;
+        int gen;
+        int[] guesses;
+        int[] feedbacks;
+        synchronized (this) {
+            int width = getSettingWidth();
+            int colQuant = getSettingColQuant();
+            boolean doubleCols = getSettingDoubleCols();
+            rows = getActiveRowNumber();
+            if (candidates != null && candidateRows == rows
+                    && candidates.matches(width, colQuant, doubleCols) == true) {
+                return candidates;
+            }
+            if (buildBusy == true || stop.getAsBoolean() == true) {
+                return null;
+            }
+            if (building == null
+                    || building.matches(width, colQuant, doubleCols) == false) {
+                if (candidates != null && candidateRows <= rows
+                        && candidates.matches(width, colQuant, doubleCols) == true) {
+                    // Filter a copy, the published set doesn't change
+                    building = candidates.copy();
+                    buildRows = candidateRows;
+                } else {
+                    building = CandidateSet.allocate(width, colQuant,
+                            doubleCols);
+                    buildRows = -1;
+                    if (building == null) {
+                        candidates = null;
+                        return null;
+                    }
+                }
+                buildWord = 0;
+            }
+            guesses = new int[rows];
+            feedbacks = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                guesses[i] = Code.of(game.gameField.getRow(i));
+                feedbacks[i] = Code.feedback(game.gameField.getResult(i));
+            }
+            set = building;
+            step = buildRows;
+            word = buildWord;
+            gen = generation;
+            buildBusy = true;
+        }
+
+        // Only this thread changes the set until it is released
+        while (step < rows) {
+            if (step < 0) {
+                word = set.init(word, stop);
+            } else {
+                word = set.filter(guesses[step], feedbacks[step], word, stop);
+            }
+            if (word < set.words()) {
+                break;
+            }
+            step++;
+            word = 0;
+        }
+
+        synchronized (this) {
+            buildBusy = false;
+            if (gen != generation) {
+                // The game was replaced meanwhile
+                return null;
+            }
+            if (step < rows) {
+                buildRows = step;
+                buildWord = word;
+                return null;
+            }
+            building = null;
+            candidates = set;
+            candidateRows = rows;
+            return set;
+        }
+    }
+
+    // Drop the candidates of the last game, called with the lock held
+    private void resetCandidates() {
+        candidates = null;
+        building = null;
+        generation++;
+    }
+
     /*
      * Set a Row of colors to the active game Row
      * colors - the colors to set as active game Row
@@ -221,10 +384,151 @@ public class ControlInterface {
         game.settings.setAiMode(status);
     }
 
-    // Start a new game
+    /*
+     * Getter for the population size of the genetic AI
+     * return: the number of codes in a generation
+     */
+    public int getSettingAiPopulationSize() {
+        return game.settings.getAiPopulationSize();
+    }
+
+    /*
+     * Setter for the population size of the genetic AI
+     * The population is processed in pairs, so odd sizes are not set.
+     * size - the number of codes in a generation (between 10 and 100000)
+     */
+    public void setSettingAiPopulationSize(int size) {
+        if (size >= 10 && size <= 100000 && size % 2 == 0) {
+            game.settings.setAiPopulationSize(size);
+        }
+    }
+
+    /*
+     * Getter for the max. number of generations of the genetic AI
+     * return: the max. number of generations for one try
+     */
+    public int getSettingAiGenerations() {
+        return game.settings.getAiGenerations();
+    }
+
+    /*
+     * Setter for the max. number of generations of the genetic AI
+     * If no feasible code is found after all generations, the AI starts
+     * again with a new population.
+     * generations - the max. number of generations (at least 1)
+     */
+    public void setSettingAiGenerations(int generations) {
+        if (generations > 0) {
+            game.settings.setAiGenerations(generations);
+        }
+    }
+
+    /*
+     * Getter for the number of feasible codes the genetic AI collects
+     * return: the number of feasible codes
+     */
+    public int getSettingAiFeasibleCodesMax() {
+        return game.settings.getAiFeasibleCodesMax();
+    }
+
+    /*
+     * Setter for the number of feasible codes the genetic AI collects
+     * The guess is chosen randomly from the collected codes.
+     * max - the number of feasible codes (at least 1)
+     */
+    public void setSettingAiFeasibleCodesMax(int max) {
+        if (max > 0) {
+            game.settings.setAiFeasibleCodesMax(max);
+        }
+    }
+
+    /*
+     * Getter for the adaptive mode of the genetic AI
+     * return: true if the adaptive mode is on, false otherwise
+     */
+    public boolean getSettingAiAdaptive() {
+        return game.settings.getAiAdaptive();
+    }
+
+    /*
+     * Setter for the adaptive mode of the genetic AI
+     * In adaptive mode the population size is derived from the code space
+     * and the remaining candidates, and the search for a guess stops when the
+     * time budget expires.
+     * adaptive - true for the adaptive mode, false for fixed sizes
+     */
+    public void setSettingAiAdaptive(boolean adaptive) {
+        game.settings.setAiAdaptive(adaptive);
+    }
+
+    /*
+     * Getter for the time budget of the genetic AI in adaptive mode
+     * return: the time budget for one guess in milliseconds
+     */
+    public long getSettingAiTimeBudget() {
+        return game.settings.getAiTimeBudget();
+    }
+
+    /*
+     * Setter for the time budget of the genetic AI in adaptive mode
+     * millis - the time budget for one guess in milliseconds (at least 1)
+     */
+    public void setSettingAiTimeBudget(long millis) {
+        if (millis > 0) {
+            game.settings.setAiTimeBudget(millis);
+        }
+    }
+
+    /*
+     * Set the source of the secret codes of new games
+     * The default is a LocalSecretCodeSource. If the source fails,
+     * the secret code is generated locally.
+     * source - the source, e.g. a RandomOrgSecretCodeSource
+     */
+    public static void setSecretCodeSource(SecretCodeSource source) {
+        SecretCode.setSource(source);
+    }
+
+    /*
+     * Getter for the source of the secret codes of new games
+     * return: the source
+     */
+    public static SecretCodeSource getSecretCodeSource() {
+        return SecretCode.getSource();
+    }
+
+    /*
+     * Start a new game
+     * The secret code was prepared in the background while the last game
+     * was played, unless the settings changed. If it isn't ready in time,
+     * it is generated locally. Then the code for the game after this one
+     * is prepared.
+     */
     public void newGame() {
         Debug.dbgPrint("New game started");
-        game = new Game(game.settings);
+        if (pipeline == null) {
+            pipeline = new SecretCodePipeline();
+        }
+        // Taking the code may wait for the source, so not with the lock held
+        Game next = new Game(game.settings, pipeline.take(game.settings));
+        synchronized (this) {
+            game = next;
+            resetCandidates();
+        }
+    }
+
+    /*
+     * Start a new game with a locally generated secret code
+     * The source of secret codes is not used, so the games only
+     * depend on rnd. This is suitable for running many games.
+     * rnd - the random number generator for the secret code
+     */
+    public void newGame(Rng rnd) {
+        Game next = new Game(game.settings, rnd);
+        synchronized (this) {
+            game = next;
+            resetCandidates();
+        }
     }
 
     /*
@@ -305,7 +609,10 @@ public class ControlInterface {
         // Read object
         Game mygame = (Game) ois.readObject();
         ois.close();
-        game = mygame;
+        synchronized (this) {
+            game = mygame;
+            resetCandidates();
+        }
         loaded = true;
     }
 }
@@ -1,125 +1,470 @@
 package game;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 
+/*
+ * The score database (SQLite).
+ *
+ * All scores are loaded into memory when the database is opened. Score
+ * lookups and the leaderboard are served from memory, the leaderboard
+ * from a set ordered by score.
+ *
+ * One connection is opened for the lifetime of the program and the
+ * statements are prepared once. The database uses the WAL journal.
+ * Score increments update the memory right away, but are written to the
+ * database by a background thread in one transaction, every
+ * FLUSH_INTERVAL ms or as soon as FLUSH_THRESHOLD increments are pending
+ * (write-behind). Pending increments are written when the program exits,
+ * see close().
+ *
+ * Every finished game is stored in the history table with its settings and
+ * result. The records are written with the score increments, as a batch in
+ * the same transaction. The statistics are computed by SQL aggregates.
+ */
 public class Database {
 
     private static Database db = null;
 
-    public static Database getInstance() {
+    public static synchronized Database getInstance() {
         if (db == null) {
             db = new Database();
+            Runtime.getRuntime().addShutdownHook(new Thread(db::close));
         }
         return db;
     }
 
-    private final String DB_NAME = "jdbc:sqlite:database.db";
+    private static final String DB_NAME = "jdbc:sqlite:database.db";
     private final String TABLE_GAME = "Mastermind";
+    private final String TABLE_HISTORY = "GameHistory";
+
+    // The columns the statistics are grouped by
+    private final String STATISTICS_GROUP =
+            "width, col_quant, double_cols, max_tries, solver";
+
+    // Max. time in ms a score increment waits to be written
+    private final long FLUSH_INTERVAL = 1000;
+
+    // Number of pending increments that are written right away
+    private final int FLUSH_THRESHOLD = 100;
+
+    // The connection, null if the database can't be opened
+    private Connection conn;
+
+    // The prepared statements, guarded by this like the connection
+    private PreparedStatement upsertScore;
+    private PreparedStatement insertGame;
+
+    // True while changes can be written. Without a database only the
+    // memory is updated, so nothing piles up in the queues.
+    private volatile boolean writable = false;
+
+    // The scores of all users
+    private final Map<String, Long> scores = new ConcurrentHashMap<>();
+
+    // The scores ordered for the leaderboard, highest first
+    private final ConcurrentSkipListSet<LeaderboardEntry> leaderboard =
+            new ConcurrentSkipListSet<>();
+
+    /*
+     * Score increments not written yet by username
+     * Guarded by itself, like the changes of scores and leaderboard.
+     */
+    private final Map<String, Long> pending = new HashMap<>();
+    private final List<GameRecord> pendingGames = new ArrayList<>();
+    private int pendingCount = 0;
+
+    // Writes the pending increments, see flush()
+    private final ScheduledExecutorService writer =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "database writer");
+                t.setDaemon(true);
+                return t;
+            });
 
     public Database() {
-        createDatabase();
+        this(DB_NAME);
+    }
+
+    /*
+     * Open a database
+     * url - the JDBC url of the database, e.g. of a test database
+     */
+    Database(String url) {
+        connect(url);
         createGameTable();
+        createHistoryTable();
+        prepareStatements();
+        loadScores();
+        writer.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL,
+                FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
     }
 
-    private void createDatabase() {
+    // Open the connection and switch to the WAL journal
+    private void connect(String url) {
         try {
-            DriverManager.getConnection(DB_NAME);
+            Class.forName("org.sqlite.JDBC");
+            conn = DriverManager.getConnection(url);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA journal_mode=WAL");
+                stmt.execute("PRAGMA synchronous=NORMAL");
+            }
         } catch (Exception e) {
             System.out.println(e.getMessage());
+            conn = null;
         }
     }
 
-    private void createGameTable() {
+    private synchronized void createGameTable() {
+        if (conn == null) {
+            return;
+        }
         // SQL statement for creating a new table
         String sql = "CREATE TABLE IF NOT EXISTS " + TABLE_GAME + "("
                 + "    username text NOT NULL UNIQUE,\n"
                 + " guess_score INTEGER NOT NULL);";
 
-        try (Connection conn = DriverManager.getConnection(DB_NAME);
-             Statement stmt = conn.createStatement()) {
+        try (Statement stmt = conn.createStatement()) {
             // create a new table
             stmt.execute(sql);
-        } catch (Exception e) {
+        } catch (SQLException e) {
             System.out.println(e.getMessage());
         }
     }
 
-    private Connection connect() {
-        // SQLite connection string
-        Connection conn = null;
+    /*
+     * Create the game history table
+     * The indexes serve the history of a user and the statistics,
+     * which are grouped by the settings and ordered by the tries.
+     */
+    private synchronized void createHistoryTable() {
+        if (conn == null) {
+            return;
+        }
+        String sql = "CREATE TABLE IF NOT EXISTS " + TABLE_HISTORY + "("
+                + " id INTEGER PRIMARY KEY,\n"
+                + " username TEXT NOT NULL,\n"
+                + " width INTEGER NOT NULL,\n"
+                + " col_quant INTEGER NOT NULL,\n"
+                + " double_cols INTEGER NOT NULL,\n"
+                + " max_tries INTEGER NOT NULL,\n"
+                + " solver TEXT NOT NULL,\n"
+                + " tries INTEGER NOT NULL,\n"
+                + " won INTEGER NOT NULL,\n"
+                + " duration_ms INTEGER NOT NULL,\n"
+                + " played_at INTEGER NOT NULL);";
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+            stmt.execute("CREATE INDEX IF NOT EXISTS " + TABLE_HISTORY
+                    + "_user ON " + TABLE_HISTORY + "(username, played_at)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS " + TABLE_HISTORY
+                    + "_settings ON " + TABLE_HISTORY + "(" + STATISTICS_GROUP
+                    + ", tries, won, duration_ms)");
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    // Prepare the statements used for every score update and game record
+    private synchronized void prepareStatements() {
+        if (conn == null) {
+            return;
+        }
         try {
-            Class.forName("org.sqlite.JDBC");
-            conn = DriverManager.getConnection(DB_NAME);
-        } catch (Exception e) {
+            // Creates the entry or adds to the score of an existing one
+            upsertScore = conn.prepareStatement("INSERT INTO " + TABLE_GAME
+                    + "(username,guess_score) VALUES(?,?)"
+                    + " ON CONFLICT(username) DO UPDATE"
+                    + " SET guess_score = guess_score + excluded.guess_score");
+            insertGame = conn.prepareStatement("INSERT INTO " + TABLE_HISTORY
+                    + "(username,width,col_quant,double_cols,max_tries,"
+                    + "solver,tries,won,duration_ms,played_at)"
+                    + " VALUES(?,?,?,?,?,?,?,?,?,?)");
+            writable = true;
+        } catch (SQLException e) {
             System.out.println(e.getMessage());
         }
-        return conn;
     }
 
-    // create game entry
-    public void createGameEntry(String username) {
-        String sql = "INSERT INTO " + TABLE_GAME +
-                "(username,guess_score) VALUES(?,0)";
+    // Read the scores of all users into memory
+    private synchronized void loadScores() {
+        if (conn == null) {
+            return;
+        }
+        String sql = "SELECT username, guess_score FROM " + TABLE_GAME;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                String username = rs.getString(1);
+                long score = rs.getLong(2);
+                scores.put(username, score);
+                leaderboard.add(new LeaderboardEntry(username, score));
+            }
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+    }
 
-        try (Connection conn = this.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            pstmt.executeUpdate();
-        } catch (Exception e) {
-            //System.out.println(e.getMessage());
+    // create game entry, written with the next flush
+    public void createGameEntry(String username) {
+        if (scores.containsKey(username) == false) {
+            incrementScore(username, 0);
         }
     }
 
     public void incrementGuessScore(String username) {
-        incrementScore(username, "guess_score", 1);
+        incrementScore(username, 1);
     }
 
-    private void incrementScore(String username, String game_name, int val) {
-        // try to update the type score for the username, if not successful
-        // it means that user is not in db, so add em with a 1 score for type
-        createGameEntry(username);
-        String sql = "UPDATE " + TABLE_GAME +
-                " SET " + game_name + " = " + game_name + " + " + val + " " +
-                " WHERE username = ?";
+    /*
+     * Add to a score in memory and queue the increment for the database
+     * The entry is created if needed. Without a database only the memory
+     * is updated.
+     * username - the user
+     * val - the value to add to the score
+     */
+    private void incrementScore(String username, long val) {
+        boolean flushNow;
+        synchronized (pending) {
+            Long old = scores.get(username);
+            long score = (old != null ? old : 0) + val;
+            if (old != null) {
+                leaderboard.remove(new LeaderboardEntry(username, old));
+            }
+            scores.put(username, score);
+            leaderboard.add(new LeaderboardEntry(username, score));
+            if (writable == false) {
+                return;
+            }
+            pending.merge(username, val, Long::sum);
+            flushNow = ++pendingCount == FLUSH_THRESHOLD;
+        }
+        if (flushNow) {
+            flushLater();
+        }
+    }
 
-        try (Connection conn = this.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            pstmt.executeUpdate();
-        } catch (Exception e) {
-            System.out.println(e.getMessage());
+    /*
+     * Queue a finished game for the history table
+     * The record is dropped if there is no database.
+     * record - the result of the game
+     */
+    public void recordGame(GameRecord record) {
+        if (writable == false) {
+            return;
+        }
+        boolean flushNow;
+        synchronized (pending) {
+            pendingGames.add(record);
+            flushNow = ++pendingCount == FLUSH_THRESHOLD;
+        }
+        if (flushNow) {
+            flushLater();
         }
     }
 
+    // Write the pending changes on the writer thread right away
+    private void flushLater() {
+        if (writer.isShutdown() == false) {
+            writer.execute(this::flush);
+        }
+    }
 
     public long getGuessScore(String username) {
-        return getScore(username, "guess_score");
+        return getScore(username);
     }
 
-    private long getScore(String username, String game_name) {
-        createGameEntry(username);
-        String sql = "SELECT " + game_name + " "
-                + "FROM " + TABLE_GAME + " WHERE username = ?";
+    /*
+     * The score of a user, served from memory
+     * username - the user
+     * return: the score, 0 for a new user
+     */
+    private long getScore(String username) {
+        return scores.getOrDefault(username, 0L);
+    }
 
-        try (Connection conn = this.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    /*
+     * The users with the highest scores, served from memory
+     * n - the max. number of users
+     * return: the entries, highest score first
+     */
+    public List<LeaderboardEntry> getLeaderboard(int n) {
+        List<LeaderboardEntry> top = new ArrayList<>(n);
+        for (LeaderboardEntry e : leaderboard) {
+            if (top.size() == n) {
+                break;
+            }
+            top.add(e);
+        }
+        return top;
+    }
 
-            // set the value
-            pstmt.setString(1, username);
+    /*
+     * Write all pending score increments and game records in one transaction
+     * If the transaction fails, they are queued again.
+     */
+    public synchronized void flush() {
+        if (upsertScore == null) {
+            return;
+        }
+        Map<String, Long> batch;
+        List<GameRecord> games;
+        synchronized (pending) {
+            if (pending.isEmpty() && pendingGames.isEmpty()) {
+                return;
+            }
+            batch = new HashMap<>(pending);
+            games = new ArrayList<>(pendingGames);
+            pending.clear();
+            pendingGames.clear();
+            pendingCount = 0;
+        }
+        try {
+            conn.setAutoCommit(false);
+            for (Map.Entry<String, Long> e : batch.entrySet()) {
+                upsertScore.setString(1, e.getKey());
+                upsertScore.setLong(2, e.getValue());
+                upsertScore.addBatch();
+            }
+            if (batch.isEmpty() == false) {
+                upsertScore.executeBatch();
+            }
+            for (GameRecord g : games) {
+                insertGame.setString(1, g.getUsername());
+                insertGame.setInt(2, g.getWidth());
+                insertGame.setInt(3, g.getColQuant());
+                insertGame.setInt(4, g.getDoubleCols() ? 1 : 0);
+                insertGame.setInt(5, g.getMaxTries());
+                insertGame.setString(6, g.getSolver());
+                insertGame.setInt(7, g.getTries());
+                insertGame.setInt(8, g.isWon() ? 1 : 0);
+                insertGame.setLong(9, g.getDurationMillis());
+                insertGame.setLong(10, g.getPlayedAt());
+                insertGame.addBatch();
+            }
+            if (games.isEmpty() == false) {
+                insertGame.executeBatch();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+            rollback();
+            requeue(batch, games);
+        } finally {
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+
+    // Undo the running transaction
+    private void rollback() {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    // Queue increments and game records of a failed transaction again
+    private void requeue(Map<String, Long> batch, List<GameRecord> games) {
+        synchronized (pending) {
+            for (Map.Entry<String, Long> e : batch.entrySet()) {
+                pending.merge(e.getKey(), e.getValue(), Long::sum);
+            }
+            pendingGames.addAll(0, games);
+            pendingCount += batch.size() + games.size();
+        }
+    }
 
-            ResultSet rs = pstmt.executeQuery();
+    /*
+     * The statistics of all games, per settings combination and solver
+     * return: the statistics, empty if the database can't be read
+     */
+    public List<GameStatistics> getStatistics() {
+        return getStatistics(null);
+    }
+
+    /*
+     * The statistics of the games of a user, per settings combination
+     * and solver. Pending game records are written first.
+     * The tries of the games of a group are ranked with a window function,
+     * the percentiles are the first ranks that reach their share (nearest
+     * rank). Everything else is a plain aggregate.
+     *
+     * username - the user, null for all users
+     * return: the statistics, empty if the database can't be read
+     */
+    public synchronized List<GameStatistics> getStatistics(String username) {
+        List<GameStatistics> stats = new ArrayList<>();
+        if (conn == null) {
+            return stats;
+        }
+        flush();
+        String sql = "SELECT " + STATISTICS_GROUP + ",\n"
+                + " COUNT(*) AS games,\n"
+                + " AVG(won) AS win_rate,\n"
+                + " AVG(tries) AS avg_tries,\n"
+                + " MIN(CASE WHEN pos * 2 >= cnt THEN tries END) AS median,\n"
+                + " MIN(CASE WHEN pos * 10 >= cnt * 9 THEN tries END) AS p90,\n"
+                + " AVG(duration_ms) AS avg_duration\n"
+                + "FROM (SELECT " + STATISTICS_GROUP
+                + ", tries, won, duration_ms,\n"
+                + "  ROW_NUMBER() OVER (PARTITION BY " + STATISTICS_GROUP
+                + " ORDER BY tries) AS pos,\n"
+                + "  COUNT(*) OVER (PARTITION BY " + STATISTICS_GROUP
+                + ") AS cnt\n"
+                + "  FROM " + TABLE_HISTORY
+                + " WHERE ?1 IS NULL OR username = ?1)\n"
+                + "GROUP BY " + STATISTICS_GROUP + "\n"
+                + "ORDER BY " + STATISTICS_GROUP;
 
-            // loop through the result set
-            if (rs.next()) {
-                return rs.getInt(game_name);
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, username);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    stats.add(new GameStatistics(rs.getInt("width"),
+                            rs.getInt("col_quant"), rs.getInt("double_cols") != 0,
+                            rs.getInt("max_tries"), rs.getString("solver"),
+                            rs.getLong("games"), rs.getDouble("win_rate"),
+                            rs.getDouble("avg_tries"), rs.getInt("median"),
+                            rs.getInt("p90"), rs.getDouble("avg_duration")));
+                }
             }
-            return -1;
         } catch (SQLException e) {
             System.out.println(e.getMessage());
-            return -2;
         }
+        return stats;
     }
 
+    // Write the pending increments and close the connection
+    public synchronized void close() {
+        writer.shutdown();
+        writable = false;
+        flush();
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+        // Closing the connection closes its statements
+        upsertScore = null;
+        insertGame = null;
+        conn = null;
+    }
 }
-
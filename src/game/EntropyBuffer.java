@@ -0,0 +1,183 @@
+package game;
+
+import common.Debug;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+
+/*
+ * A buffer of true random numbers from the random.org integer generator.
+ * See https://www.random.org/clients/http/
+ *
+ * The numbers are fetched in batches of up to 10000 numbers per request.
+ * When fewer than a quarter of a batch are left, the next batch is fetched
+ * in the background, so the numbers are usually served from memory.
+ * Only if the buffer runs empty (e.g. on first use) a caller has to wait
+ * for the request, at most MAX_WAIT ms. The request keeps running after
+ * that, so its numbers are used by the next caller.
+ *
+ * All numbers are between 0 and RANGE-1. RANGE is divisible by every number
+ * from 1 to 10, so "number % n" is uniform for every quantity of colors.
+ */
+final class EntropyBuffer {
+
+    // The range of the numbers, the least common multiple of 1..10
+    static final int RANGE = 2520;
+
+    // Max. number of integers random.org returns for one request
+    private static final int MAX_BATCH_SIZE = 10000;
+
+    // Max. time in ms a caller waits for a refill
+    private static final long MAX_WAIT = 2000;
+
+    // The thread the batches are fetched on, shared by all buffers
+    private static final ExecutorService FETCHER =
+            Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "random.org fetcher");
+                t.setDaemon(true);
+                return t;
+            });
+
+    // Base URL of the random.org API (or a stand-in server)
+    private final String baseUrl;
+
+    // The client the batches are fetched with
+    private final HTTPUtils client;
+
+    // Number of numbers fetched with one request
+    private final int batchSize;
+
+    // A refill is started when fewer numbers are left
+    private final int lowWater;
+
+    // The numbers, valid from pos to size
+    private int[] numbers = new int[0];
+    private int pos = 0;
+    private int size = 0;
+
+    // The running refill, null if there is none
+    private CompletableFuture<int[]> refill;
+
+    /*
+     * Creates an empty buffer, the first batch is fetched in the background
+     * baseUrl - base URL of the random.org API, e.g. "https://www.random.org"
+     * batchSize - number of numbers fetched with one request (1..10000)
+     * client - the client the batches are fetched with
+     */
+    EntropyBuffer(String baseUrl, int batchSize, HTTPUtils client) {
+        this.baseUrl = baseUrl;
+        this.client = client;
+        this.batchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, batchSize));
+        lowWater = this.batchSize / 4;
+        synchronized (this) {
+            startRefill();
+        }
+    }
+
+    /*
+     * Take numbers from the buffer
+     * Waits for a refill if there are not enough numbers left. A failed
+     * refill is only reported if its numbers are needed.
+     * count - the number of numbers (at most the batch size)
+     * return: count numbers between 0 and RANGE-1
+     * throws: IOException if random.org can't be reached in time
+     */
+    synchronized int[] take(int count) throws IOException {
+        if (refill != null && refill.isDone() && size - pos >= count) {
+            // Only a caller that needs the numbers gets the error of a
+            // failed refill, the next low water check retries it
+            try {
+                collectRefill();
+            } catch (IOException e) {
+                Debug.dbgPrint("random.org: Refill failed: " + e.getMessage());
+            }
+        }
+        if (size - pos < count) {
+            if (refill == null) {
+                startRefill();
+            }
+            collectRefill();
+            if (size - pos < count) {
+                throw new IOException("random.org: Not enough random numbers");
+            }
+        }
+        int[] taken = new int[count];
+        System.arraycopy(numbers, pos, taken, 0, count);
+        pos += count;
+        if (size - pos < lowWater && refill == null) {
+            startRefill();
+        }
+        return taken;
+    }
+
+    // Fetch the next batch in the background
+    private void startRefill() {
+        refill = CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetch();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, FETCHER);
+    }
+
+    /*
+     * Wait for the running refill and append its numbers
+     * throws: IOException if the refill failed (the next take() retries)
+     * or is not done after MAX_WAIT ms (it keeps running)
+     */
+    private void collectRefill() throws IOException {
+        int[] batch;
+        try {
+            batch = refill.get(MAX_WAIT, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IOException("random.org: No response within "
+                    + MAX_WAIT + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("random.org: Interrupted");
+        } catch (ExecutionException e) {
+            refill = null;
+            Throwable cause = e.getCause();
+            throw cause instanceof UncheckedIOException
+                    ? ((UncheckedIOException) cause).getCause()
+                    : new IOException(cause);
+        }
+        refill = null;
+        // Move the remaining numbers to the front and append the batch
+        int[] next = new int[size - pos + batch.length];
+        System.arraycopy(numbers, pos, next, 0, size - pos);
+        System.arraycopy(batch, 0, next, size - pos, batch.length);
+        numbers = next;
+        size = next.length;
+        pos = 0;
+        Debug.dbgPrint("random.org: " + batch.length + " numbers fetched");
+    }
+
+    /*
+     * Fetch a batch of numbers from the integer generator
+     * return: batchSize numbers between 0 and RANGE-1
+     * throws: IOException if random.org can't be reached or the
+     * response is invalid
+     */
+    private int[] fetch() throws IOException {
+        String query = baseUrl + "/integers/?num=" + batchSize
+                + "&min=0&max=" + (RANGE - 1)
+                + "&col=1&base=10&format=plain&rnd=new";
+        int[] batch = client.getInts(query, batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            if (batch[i] >= RANGE) {
+                throw new IOException("random.org: Number out of range: "
+                        + batch[i]);
+            }
+        }
+        return batch;
+    }
+}
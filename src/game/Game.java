@@ -6,6 +6,9 @@ import java.io.Serializable;
 
 // Game-engine class. Controls the game flow
 class Game implements Serializable {
+    // Same as the first version, so games saved by it can still be loaded
+    private static final long serialVersionUID = 15858812466967705L;
+
     /*
      * Object variables
      * All protected so that the control interface
@@ -27,7 +30,35 @@ class Game implements Serializable {
         settings = s;
         gameField = new GameField(settings.getWidth(), settings.getMaxTries());
         secretCode = new SecretCode(settings.getColQuant(), settings.getWidth(),
-                settings.getDoubleCols());
+                settings.getDoubleCols(), Rng.create());
+    }
+
+    /*
+     * Constructor with init instructions for new game.
+     * The secret code is generated locally, the source of secret codes
+     * (see ControlInterface.setSecretCodeSource()) is not used.
+     *
+     * s - settings for the new game.
+     * rnd - the random number generator for the secret code
+     */
+    public Game(Settings s, Rng rnd) {
+        settings = s;
+        gameField = new GameField(settings.getWidth(), settings.getMaxTries());
+        secretCode = new SecretCode(settings.getColQuant(), settings.getWidth(),
+                settings.getDoubleCols(), rnd, true);
+    }
+
+    /*
+     * Constructor with init instructions for new game.
+     * The secret code was generated before, see SecretCodePipeline.
+     *
+     * s - settings for the new game.
+     * code - the secret code of the new game
+     */
+    public Game(Settings s, SecretCode code) {
+        settings = s;
+        gameField = new GameField(settings.getWidth(), settings.getMaxTries());
+        secretCode = code;
     }
 
     /*
@@ -59,41 +90,13 @@ class Game implements Serializable {
      * White = exists (the player had guess a correct number)
      */
     private Row checkActiveRow() {
-        // Create real copies
-        Color [] row = new Color[settings.getWidth()];
-        System.arraycopy(gameField.getRow().getColors(), 0, row, 0,
-                settings.getWidth());
-        Color [] secretRow = new Color[settings.getWidth()];
-        System.arraycopy(secretCode.getCode().getColors(), 0, secretRow, 0,
-                settings.getWidth());
+        int width = settings.getWidth();
+        int row = Code.of(gameField.getRow());
+        int secretRow = Code.of(secretCode.getCode());
 
-        Row result = new Row(row.length);
-        int index = 0;
-        // Check "correct"-colors first
+        // Black pegs come first, then white pegs
         // for a result like "black, black, white, null"
-        for (int i = 0; i < row.length; i++) {
-            if (row[i] == secretRow[i]) {
-                // Right color at right position (correct)
-                result.setColAtPos(index++, Color.Black);
-                // Mark color as checked
-                secretRow[i] = null;
-                row[i] = null;
-            }
-        }
-        // Now check "exists"-colors
-        outer: for (int i = 0; i < row.length; i++) {
-            if (row[i] != null) {
-                for (int j = 0; j < row.length; j++) {
-                    if (secretRow[j] != null && row[i] == secretRow[j]) {
-                        // Right color but wrong position (exists)
-                        result.setColAtPos(index++, Color.White);
-                        // Mark color as checked
-                        secretRow[j] = null;
-                        continue outer;
-                    }
-                }
-            }
-        }
+        Row result = Code.toResultRow(Score.compare(row, secretRow, width), width);
         Debug.dbgPrint("checkActiveRow: " + result);
         gameField.setResult(result);
         return result;
@@ -0,0 +1,88 @@
+package game;
+
+
+/*
+ * The result of a finished game for the game history, see
+ * Database.recordGame(GameRecord).
+ */
+public final class GameRecord {
+
+    private final String username;
+    private final int width;
+    private final int colQuant;
+    private final boolean doubleCols;
+    private final int maxTries;
+    private final int tries;
+    private final boolean won;
+    private final long durationMillis;
+    private final String solver;
+    private final long playedAt;
+
+    /*
+     * Creates a record of a game that ended now
+     * username - the user who played (or watched the AI)
+     * width - width of the code
+     * colQuant - quantity of colors
+     * doubleCols - allowance of duplicate colors
+     * maxTries - max. number of guesses
+     * tries - the number of guesses used
+     * won - true if the code was broken, false otherwise
+     * durationMillis - the time of the game in milliseconds
+     * solver - the name of the AI that guessed, "human" for a player
+     */
+    public GameRecord(String username, int width, int colQuant,
+                      boolean doubleCols, int maxTries, int tries, boolean won,
+                      long durationMillis, String solver) {
+        this.username = username;
+        this.width = width;
+        this.colQuant = colQuant;
+        this.doubleCols = doubleCols;
+        this.maxTries = maxTries;
+        this.tries = tries;
+        this.won = won;
+        this.durationMillis = durationMillis;
+        this.solver = solver;
+        playedAt = System.currentTimeMillis();
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getColQuant() {
+        return colQuant;
+    }
+
+    public boolean getDoubleCols() {
+        return doubleCols;
+    }
+
+    public int getMaxTries() {
+        return maxTries;
+    }
+
+    public int getTries() {
+        return tries;
+    }
+
+    public boolean isWon() {
+        return won;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public String getSolver() {
+        return solver;
+    }
+
+    // The end of the game, see System.currentTimeMillis()
+    public long getPlayedAt() {
+        return playedAt;
+    }
+}
@@ -0,0 +1,104 @@
+package game;
+
+
+/*
+ * Aggregated results of the games with the same settings and solver,
+ * see Database.getStatistics().
+ * The percentiles of the tries use the nearest-rank method.
+ */
+public final class GameStatistics {
+
+    private final int width;
+    private final int colQuant;
+    private final boolean doubleCols;
+    private final int maxTries;
+    private final String solver;
+    private final long games;
+    private final double winRate;
+    private final double averageTries;
+    private final int medianTries;
+    private final int p90Tries;
+    private final double averageDurationMillis;
+
+    /*
+     * Creates the statistics of a settings combination
+     * width, colQuant, doubleCols, maxTries - the settings of the games
+     * solver - the name of the AI, "human" for a player
+     * games - the number of games
+     * winRate - the share of games won, between 0 and 1
+     * averageTries - the mean number of guesses
+     * medianTries - the median number of guesses
+     * p90Tries - the 90th percentile of the number of guesses
+     * averageDurationMillis - the mean time of a game in milliseconds
+     */
+    public GameStatistics(int width, int colQuant, boolean doubleCols,
+                          int maxTries, String solver, long games,
+                          double winRate, double averageTries, int medianTries,
+                          int p90Tries, double averageDurationMillis) {
+        this.width = width;
+        this.colQuant = colQuant;
+        this.doubleCols = doubleCols;
+        this.maxTries = maxTries;
+        this.solver = solver;
+        this.games = games;
+        this.winRate = winRate;
+        this.averageTries = averageTries;
+        this.medianTries = medianTries;
+        this.p90Tries = p90Tries;
+        this.averageDurationMillis = averageDurationMillis;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getColQuant() {
+        return colQuant;
+    }
+
+    public boolean getDoubleCols() {
+        return doubleCols;
+    }
+
+    public int getMaxTries() {
+        return maxTries;
+    }
+
+    public String getSolver() {
+        return solver;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    // The share of games won, between 0 and 1
+    public double getWinRate() {
+        return winRate;
+    }
+
+    public double getAverageTries() {
+        return averageTries;
+    }
+
+    public int getMedianTries() {
+        return medianTries;
+    }
+
+    public int getP90Tries() {
+        return p90Tries;
+    }
+
+    public double getAverageDurationMillis() {
+        return averageDurationMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%dx%d%s (%d tries) %s: %d games, %.1f%% won, "
+                        + "tries avg %.2f, median %d, p90 %d, %.0fms",
+                width, colQuant, doubleCols ? " duplicates" : "", maxTries,
+                solver, games, winRate * 100, averageTries, medianTries,
+                p90Tries, averageDurationMillis);
+    }
+}
@@ -1,48 +1,375 @@
 package game;
 
-import java.io.BufferedReader;
+import common.Debug;
+
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.ArrayList;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /*
  * Low level class-util that handles all http work
  * for obtaining results without third-party libs.
+ *
+ * A HTTPUtils instance wraps one java.net.http.HttpClient, so connections
+ * are kept alive and reused between requests. Every request has a
+ * connect and a request timeout, so a stalled server can't block the
+ * caller for longer. The request timeout covers the whole exchange
+ * including the response body. A "503 Service Unavailable" response (random.org is
+ * busy) is retried with exponential backoff, or after the time the
+ * server asks for (Retry-After header), at most the request timeout.
  */
 public final class HTTPUtils {
 
-    private final static String GET = "GET";
-    private HTTPUtils(){}
+    // Default timeouts and retries, see getDefault()
+    public static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(3);
+    public static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+    public static final int MAX_RETRIES = 2;
+    public static final Duration BACKOFF = Duration.ofMillis(250);
+
+    // HTTP status code of a busy server
+    private static final int SERVICE_UNAVAILABLE = 503;
+
+    // The shared instance with the default settings, created on first use
+    private static HTTPUtils defaultInstance;
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final int maxRetries;
+    private final Duration backoff;
+
+    /*
+     * Creates a client
+     * connectTimeout - max. time to establish a connection
+     * requestTimeout - max. time from sending a request to the end of the
+     *                  response body
+     * maxRetries - number of retries of a request answered with 503
+     * backoff - wait before the first retry, doubled for every further one
+     */
+    public HTTPUtils(Duration connectTimeout, Duration requestTimeout,
+                     int maxRetries, Duration backoff) {
+        client = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.requestTimeout = requestTimeout;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.backoff = backoff;
+    }
+
+    /*
+     * The shared client with the default timeouts and retries
+     * return: the client
+     */
+    public static synchronized HTTPUtils getDefault() {
+        if (defaultInstance == null) {
+            defaultInstance = new HTTPUtils(CONNECT_TIMEOUT, REQUEST_TIMEOUT,
+                    MAX_RETRIES, BACKOFF);
+        }
+        return defaultInstance;
+    }
+
+    /*
+     * Retrieves non-negative integers on provided url.
+     * The response body is parsed while it is read, numbers are separated
+     * by white space (one per line for random.org).
+     * url - the url
+     * count - the number of integers expected
+     * return: the first count integers of the response
+     * throws: IOException if the request fails or times out, the server
+     * answers with an error, or the response has fewer or invalid numbers
+     */
+    public int[] getInts(String url, int count) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(requestTimeout)
+                .GET()
+                .build();
+        BodyParser body = send(request, count);
+        if (body.status != 200) {
+            throw new IOException("HTTP " + body.status + " from "
+                    + request.uri().getHost() + ": " + body.message());
+        }
+        return body.numbers;
+    }
+
+    /*
+     * Send a request, retry while the server is busy
+     * request - the request
+     * count - the number of integers expected
+     * return: the parsed response
+     * throws: IOException if the request fails or all retries are used up
+     */
+    private BodyParser send(HttpRequest request, int count)
+            throws IOException {
+        long wait = backoff.toMillis();
+        for (int attempt = 0; ; attempt++) {
+            BodyParser body = exchange(request, count);
+            if (body.status != SERVICE_UNAVAILABLE || attempt == maxRetries) {
+                return body;
+            }
+            long delay = retryAfter(body.headers).orElse(wait);
+            Debug.dbgPrint("HTTP 503 from " + request.uri().getHost()
+                    + ". Retry in " + delay + "ms");
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Request interrupted");
+            }
+            wait *= 2;
+        }
+    }
+
+    /*
+     * Send a request once and parse the response within the request timeout
+     * The timeout of the request itself only covers the response headers,
+     * so a server that stalls while sending the body would block the
+     * caller forever. Cancelling the future of the response doesn't end
+     * the exchange (JDK 11), so the subscription of the body is cancelled,
+     * which closes the connection.
+     * request - the request
+     * count - the number of integers expected
+     * return: the parsed response
+     * throws: IOException if the request fails or times out
+     */
+    private BodyParser exchange(HttpRequest request, int count)
+            throws IOException {
+        AtomicReference<BodyParser> parser = new AtomicReference<>();
+        CompletableFuture<HttpResponse<BodyParser>> future = client.sendAsync(
+                request, info -> {
+                    BodyParser body = new BodyParser(info, count);
+                    parser.set(body);
+                    return body;
+                });
+        try {
+            return future.get(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .body();
+        } catch (TimeoutException e) {
+            abort(future, parser.get());
+            throw new HttpTimeoutException("No complete response from "
+                    + request.uri().getHost() + " within "
+                    + requestTimeout.toMillis() + "ms");
+        } catch (InterruptedException e) {
+            abort(future, parser.get());
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Request interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /*
+     * End an exchange that is still running
+     * Without a body parser the headers didn't arrive yet, which the
+     * timeout of the request ends.
+     * future - the response
+     * parser - the body parser, null if the headers didn't arrive yet
+     */
+    private static void abort(CompletableFuture<?> future, BodyParser parser) {
+        if (parser != null) {
+            parser.cancel();
+        }
+        future.cancel(true);
+    }
 
     /*
-     * Retrieves content on provided url.
-     * Recreates connection on each call.
-     * @param urlString
-     * @return BufferedReader
-     * @throws IOException
+     * The delay the server asks for in the Retry-After header
+     * The header holds seconds or an HTTP date. The delay is capped at the
+     * request timeout, so a server can't block the caller for longer.
+     * headers - the headers of the 503 response
+     * return: the delay in ms, empty if the header is missing or invalid
      */
-    public static ArrayList<String> get(String urlString) throws IOException{
-        // TODO handle 503 response
-        // TODO add timeout functionality
-        HttpURLConnection connection;
-        BufferedReader rd = null;
-        ArrayList<String> strings = new ArrayList<String>();
+    private Optional<Long> retryAfter(HttpHeaders headers) {
+        Optional<String> header = headers.firstValue("Retry-After");
+        if (header.isEmpty()) {
+            return Optional.empty();
+        }
+        String value = header.get().trim();
+        long delay;
         try {
-            URL url = new URL(urlString);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod(GET);
-            rd = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-            String line = "";
-            while ((line = rd.readLine()) != null) {
-                strings.add(line);
+            delay = Long.parseLong(value) * 1000;
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(value,
+                        DateTimeFormatter.RFC_1123_DATE_TIME);
+                delay = Duration.between(Instant.now(), date.toInstant())
+                        .toMillis();
+            } catch (DateTimeParseException | ArithmeticException e2) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(Math.max(0, Math.min(delay,
+                requestTimeout.toMillis())));
+    }
+
+    /*
+     * Parses the response body while it is received
+     * The numbers of a 200 response are parsed without creating strings,
+     * the rest of the body after count numbers is skipped. Of any other
+     * response only the first line is kept, see message().
+     * The parser is the body of the response, so the status and headers
+     * are kept with it.
+     */
+    private static final class BodyParser
+            implements HttpResponse.BodySubscriber<BodyParser> {
+
+        // Max. length of the message of an error response
+        private static final int MESSAGE_SIZE = 200;
+
+        final int status;
+        final HttpHeaders headers;
+        final int[] numbers;
+
+        private final CompletableFuture<BodyParser> body =
+                new CompletableFuture<>();
+        private final ByteArrayOutputStream message =
+                new ByteArrayOutputStream();
+        private int count;
+        private long value;
+        private boolean inNumber;
+
+        // The subscription, cancelled by cancel(), guarded by this
+        private Flow.Subscription subscription;
+        private boolean cancelled;
+
+        BodyParser(HttpResponse.ResponseInfo info, int count) {
+            status = info.statusCode();
+            headers = info.headers();
+            numbers = new int[status == 200 ? count : 0];
+        }
+
+        @Override
+        public synchronized void onSubscribe(Flow.Subscription s) {
+            if (cancelled == true) {
+                s.cancel();
+                return;
+            }
+            subscription = s;
+            s.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            try {
+                for (ByteBuffer buffer : buffers) {
+                    while (buffer.hasRemaining() == true) {
+                        parse(buffer.get());
+                    }
+                }
+            } catch (IOException e) {
+                body.completeExceptionally(e);
+                cancel();
+                return;
+            }
+            synchronized (this) {
+                if (cancelled == false) {
+                    subscription.request(1);
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            body.completeExceptionally(t);
+        }
+
+        @Override
+        public void onComplete() {
+            if (inNumber == true && count < numbers.length) {
+                numbers[count++] = (int) value;
+            }
+            if (count < numbers.length) {
+                body.completeExceptionally(new IOException(count
+                        + " numbers received, " + numbers.length
+                        + " expected"));
+            } else {
+                body.complete(this);
+            }
+        }
+
+        @Override
+        public CompletionStage<BodyParser> getBody() {
+            return body;
+        }
+
+        /*
+         * Stop receiving the body, which ends the exchange
+         */
+        void cancel() {
+            synchronized (this) {
+                if (cancelled == true) {
+                    return;
+                }
+                cancelled = true;
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+            }
+            body.completeExceptionally(new IOException("Response cancelled"));
+        }
+
+        /*
+         * The first line of an error response, e.g. the message of random.org
+         * return: the first line, at most 200 characters
+         */
+        String message() {
+            String text = new String(message.toByteArray(),
+                    StandardCharsets.UTF_8);
+            int end = text.indexOf('\n');
+            return (end >= 0 ? text.substring(0, end) : text).trim();
+        }
+
+        // Parse the next byte of the body
+        private void parse(int c) throws IOException {
+            if (status != 200) {
+                if (message.size() < MESSAGE_SIZE) {
+                    message.write(c);
+                }
+                return;
+            }
+            if (count == numbers.length) {
+                return;
             }
-        } finally {
-            if (rd != null) {
-                rd.close();
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE) {
+                    throw new IOException("Number too large");
+                }
+                inNumber = true;
+            } else if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                if (inNumber == true) {
+                    numbers[count++] = (int) value;
+                    value = 0;
+                    inNumber = false;
+                }
+            } else {
+                throw new IOException("Invalid character in response: "
+                        + (char) c);
             }
         }
-        return strings;
     }
-}
\ No newline at end of file
+}
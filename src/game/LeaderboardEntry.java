@@ -0,0 +1,58 @@
+package game;
+
+
+/*
+ * The score of a user in the leaderboard, see Database.getLeaderboard(int).
+ * Entries are ordered by score, highest first, and by username.
+ */
+
+public final class LeaderboardEntry implements Comparable<LeaderboardEntry> {
+
+    private final String username;
+    private final long score;
+
+    /*
+     * Creates an entry
+     * username - the user
+     * score - the score of the user
+     */
+    public LeaderboardEntry(String username, long score) {
+        this.username = username;
+        this.score = score;
+    }
+
+    // Getter for the username
+    public String getUsername() {
+        return username;
+    }
+
+    // Getter for the score
+    public long getScore() {
+        return score;
+    }
+
+    @Override
+    public int compareTo(LeaderboardEntry other) {
+        int c = Long.compare(other.score, score);
+        return c != 0 ? c : username.compareTo(other.username);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof LeaderboardEntry == false) {
+            return false;
+        }
+        LeaderboardEntry other = (LeaderboardEntry) o;
+        return score == other.score && username.equals(other.username);
+    }
+
+    @Override
+    public int hashCode() {
+        return username.hashCode() * 31 + Long.hashCode(score);
+    }
+
+    @Override
+    public String toString() {
+        return username + ": " + score;
+    }
+}
@@ -0,0 +1,67 @@
+package game;
+
+import common.Rng;
+
+import java.security.SecureRandom;
+
+
+/*
+ * Generates secret codes locally, without any network access.
+ * This is the default source of secret codes.
+ *
+ * The generator is a SplittableRandom seeded by SecureRandom, so the codes
+ * can't be predicted from the start time of the game. If a global seed is
+ * set (see common.Rng), the generator is split off the seed instead and
+ * runs with the same seed get the same secret codes.
+ */
+
+public final class LocalSecretCodeSource implements SecretCodeSource {
+
+    // The random number generator, guarded by this
+    private final Rng rnd;
+
+    // Creates a source with a generator seeded by SecureRandom or common.Rng
+    public LocalSecretCodeSource() {
+        this(Rng.isSeeded() ? Rng.create() : new Rng(new SecureRandom().nextLong()));
+    }
+
+    /*
+     * Creates a source with the given generator
+     * rnd - the random number generator
+     */
+    public LocalSecretCodeSource(Rng rnd) {
+        this.rnd = rnd;
+    }
+
+    /*
+     * Generate the numbers of a secret code
+     * Without duplicates the first width numbers of a shuffled
+     * list of all colors are taken.
+     *
+     * width - width (number of pins) of the code
+     * colQuant - number of different colors
+     * duplicates - allowance of same colors
+     * return: width numbers between 0 and colQuant-1
+     */
+    public synchronized int[] generate(int width, int colQuant,
+                                       boolean duplicates) {
+        int[] numbers = new int[width];
+        if (duplicates) {
+            for (int i = 0; i < width; i++) {
+                numbers[i] = rnd.nextInt(colQuant);
+            }
+            return numbers;
+        }
+        int[] list = new int[colQuant];
+        for (int i = 0; i < colQuant; i++) {
+            list[i] = i;
+        }
+        // Partial Fisher-Yates shuffle of the first width elements
+        for (int i = 0; i < width; i++) {
+            int j = i + rnd.nextInt(colQuant - i);
+            numbers[i] = list[j];
+            list[j] = list[i];
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,88 @@
+package game;
+
+import java.io.IOException;
+
+
+/*
+ * Generates secret codes with true random numbers of random.org.
+ * See https://www.random.org/clients/http/
+ *
+ * The numbers are taken from an EntropyBuffer that fetches them in large
+ * batches and refills itself in the background, so a new game usually
+ * doesn't wait for the network. This source is only used if it is set with
+ * ControlInterface.setSecretCodeSource().
+ * If random.org can't be reached, the game falls back to a local code.
+ *
+ * The base URL can be changed, e.g. to a local stand-in server for tests.
+ */
+
+public class RandomOrgSecretCodeSource implements SecretCodeSource {
+
+    // Base URL of the random.org API
+    public static final String BASE_URL = "https://www.random.org";
+
+    // Default number of numbers fetched with one request
+    public static final int BATCH_SIZE = 1000;
+
+    // The prefetched random numbers
+    private final EntropyBuffer buffer;
+
+    // Creates a source for random.org, the first batch is fetched right away
+    public RandomOrgSecretCodeSource() {
+        this(BASE_URL, BATCH_SIZE);
+    }
+
+    /*
+     * Creates a source for a server with the random.org API
+     * The first batch is fetched right away.
+     * baseUrl - the base URL, e.g. BASE_URL
+     * batchSize - number of numbers fetched with one request (1..10000)
+     */
+    public RandomOrgSecretCodeSource(String baseUrl, int batchSize) {
+        this(baseUrl, batchSize, HTTPUtils.getDefault());
+    }
+
+    /*
+     * Creates a source for a server with the random.org API
+     * The first batch is fetched right away.
+     * baseUrl - the base URL, e.g. BASE_URL
+     * batchSize - number of numbers fetched with one request (1..10000)
+     * client - the client with the timeouts and retries to use
+     */
+    public RandomOrgSecretCodeSource(String baseUrl, int batchSize,
+                                     HTTPUtils client) {
+        buffer = new EntropyBuffer(baseUrl, batchSize, client);
+    }
+
+    /*
+     * Generate the numbers of a secret code from the buffered numbers
+     * Without duplicates a partial Fisher-Yates shuffle of all colors
+     * is used. One number is needed per pin in both cases.
+     *
+     * width - width (number of pins) of the code
+     * colQuant - number of different colors
+     * duplicates - allowance of same colors
+     * return: width numbers between 0 and colQuant-1
+     * throws: IOException if random.org can't be reached
+     */
+    public int[] generate(int width, int colQuant, boolean duplicates)
+            throws IOException {
+        int[] numbers = buffer.take(width);
+        if (duplicates) {
+            for (int i = 0; i < width; i++) {
+                numbers[i] %= colQuant;
+            }
+            return numbers;
+        }
+        int[] list = new int[colQuant];
+        for (int i = 0; i < colQuant; i++) {
+            list[i] = i;
+        }
+        for (int i = 0; i < width; i++) {
+            int j = i + numbers[i] % (colQuant - i);
+            numbers[i] = list[j];
+            list[j] = list[i];
+        }
+        return numbers;
+    }
+}
@@ -2,55 +2,35 @@ package game;
 
 import common.Color;
 import common.Debug;
+import common.Rng;
 import common.Row;
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.util.ArrayList;
 
 
 /*
  * This class represents the secret code the player has to guess.
  */
 class SecretCode implements Serializable {
-    /*
-     * Integer generator part of random.org API.
-     * Provides methods for random integer numbers generating.
-     * Generate count numbers between min and max inclusively.
-     * Similar behavior to Arrays.shuffle()
-     *
-     * return: list of numbers
-     * throws: IOException
-     */
-
-
-    // Parameters for query.
-    // num = 4 and max = 7 assigned by default in Settings
-    int min = 0;
-    int col = 1;
-    int base = 10;
-    String format = "plain";
-    String rnd = "new";
+    // Same as the first version, so games saved by it can still be loaded
+    private static final long serialVersionUID = -4252148709450807546L;
 
-    public int[] generate(int num, int max) throws IOException {
+    // The source of new secret codes, see ControlInterface.setSecretCodeSource()
+    private static volatile SecretCodeSource source = new LocalSecretCodeSource();
 
-     String query = "https://www.random.org/integers/?num=" + num
-                + "&min=" + min
-                + "&max=" + max
-                + "&col=" + col
-                + "&base=" + base
-                + "&format=" + format
-                + "&rnd=" + rnd;
-
-        ArrayList<String> strings = HTTPUtils.get(query);
-        int[] numbers = new int[num];
-
-        for (int i = 0; i < strings.size(); i++) {
-            numbers[i] = Integer.parseInt(strings.get(i));
-        }
-        return numbers;
+    /*
+     * Set the source of new secret codes
+     * source - the source, used by all threads
+     */
+    static void setSource(SecretCodeSource source) {
+        SecretCode.source = source;
     }
 
+    // The source of new secret codes
+    static SecretCodeSource getSource() {
+        return source;
+    }
 
     // Translates randomly generated numbers into Color enums
     private Color translateToColor (int num) {
@@ -102,70 +82,66 @@ class SecretCode implements Serializable {
      * duplicates - allowance of same digits
      */
     public SecretCode(int colQuant, int width, boolean duplicates) {
-        generateCode(colQuant, width, duplicates);
+        this(colQuant, width, duplicates, Rng.create());
+    }
+
+    /*
+     * Initializes a new secret code with the given parameters
+     *
+     * colQuant - number of different colors to choose from
+     * width - width (number of pins) of the code
+     * duplicates - allowance of same digits
+     * rnd - the random number generator for local code generation
+     */
+    public SecretCode(int colQuant, int width, boolean duplicates, Rng rnd) {
+        this(colQuant, width, duplicates, rnd, Rng.isSeeded());
+    }
+
+    /*
+     * Initializes a new secret code with the given parameters
+     *
+     * colQuant - number of different colors to choose from
+     * width - width (number of pins) of the code
+     * duplicates - allowance of same digits
+     * rnd - the random number generator for local code generation
+     * local - true to always generate the code locally,
+     * false to use the source of new secret codes
+     */
+    public SecretCode(int colQuant, int width, boolean duplicates, Rng rnd,
+                      boolean local) {
+        generateCode(colQuant, width, duplicates, rnd,
+                local ? new LocalSecretCodeSource(rnd) : source);
     }
 
     /*
      * Creates a secret code
+     * If the source fails, e.g. random.org can't be reached,
+     * the code is generated locally.
      *
      * colQuant - number of different colors
      * width - width (number of pins) of the code
      * duplicates - allowance of same colors
+     * rnd - the random number generator for local code generation
+     * source - the source of the code
      */
-    private void generateCode(int colQuant, int width, boolean duplicates) {
-
+    private void generateCode(int colQuant, int width, boolean duplicates,
+                              Rng rnd, SecretCodeSource source) {
+        int[] code;
         try {
-            /*
-             * Generate random numbers combination and save it in the array of integers
-             * range is 8 (numbers from 0 to 7 inclusive)
-             * Comment it out to generate the secret code locally
-             */
-            int[] code = generate(width, colQuant-1);
-            secretCode = new Row(width);
-            
-            // Uncomment to generate the secret code locally:
-            // int[] code = generateCodeLocally(width, colQuant-1);
-
-            // Prepare values to fit colorQuant-rule
-            Color[] values = new Color[colQuant];
-            Color[] all = Color.values();
-            System.arraycopy(all, 0, values, 0, colQuant);
-
-            // Convert generated code of random numbers into colors
-            int i = 0;
-            while (i < width) {
-                Color now = translateToColor(code[i]);
-                if (secretCode.containsCol(now) > 0) {
-                    if (duplicates == true) {
-                        secretCode.setColAtPos(i++, now);
-                    }
-                } else {
-                secretCode.setColAtPos(i++, now);
-                }
-            }
-            Debug.dbgPrint("Secret code is: " + secretCode);
-
-        } catch (IOException ex) {
-            ex.getMessage();
-        }
-
-    }
-    
-    // Generate the secret code locally
-    private int[] generateCodeLocally (int num, int max){
-
-        int[] numbers = new int[num];
-        ArrayList<Integer> list = new ArrayList<Integer>(max);
-
-        for (int i = 0; i < max; i++){
-            list.add(i);
+            code = source.generate(width, colQuant, duplicates);
+        } catch (IOException e) {
+            Debug.errorPrint("Secret code: " + e
+                    + ". The code is generated locally.");
+            code = new LocalSecretCodeSource(rnd).generate(width, colQuant,
+                    duplicates);
         }
-        Collections.shuffle(list);
 
-        for (int i = 0; i < num; i++){
-            numbers[i] = list.get(i);
+        // Convert generated code of random numbers into colors
+        secretCode = new Row(width);
+        for (int i = 0; i < width; i++) {
+            secretCode.setColAtPos(i, translateToColor(code[i]));
         }
-        return numbers;
+        Debug.dbgPrint("Secret code is: " + secretCode);
     }
 
     /*
@@ -0,0 +1,114 @@
+package game;
+
+import common.Debug;
+import common.Rng;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+
+/*
+ * Prepares the secret code of the next game in the background.
+ * See ControlInterface.newGame().
+ *
+ * A secret code is prepared for the settings of the current game. When the
+ * next game starts with the same settings and the same source of secret
+ * codes, the prepared code is used, otherwise a new one is generated right
+ * away. Either way the code for the game after that is prepared next.
+ * So a new game doesn't wait for a slow source (e.g. random.org).
+ * If the code isn't ready within WAIT_MILLIS, it is generated locally, as
+ * take() is called on the event dispatch thread.
+ */
+final class SecretCodePipeline {
+
+    // The thread the secret codes are generated on, shared by all pipelines
+    private static final ExecutorService GENERATOR =
+            Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "secret code generator");
+                t.setDaemon(true);
+                return t;
+            });
+
+    // How long take() waits for the secret code in milliseconds
+    static final long WAIT_MILLIS = 500;
+
+    // The prepared secret code, null if there is none
+    private CompletableFuture<SecretCode> next;
+
+    // The settings and source the secret code is prepared for
+    private int colQuant;
+    private int width;
+    private boolean duplicates;
+    private SecretCodeSource source;
+
+    /*
+     * Take the prepared secret code and prepare the next one
+     * If no code is prepared for the settings, a new one is generated.
+     * If the code isn't ready within WAIT_MILLIS, it is generated locally.
+     * settings - the settings of the new game
+     * return: the secret code for the new game
+     */
+    synchronized SecretCode take(Settings settings) {
+        if (next == null || matches(settings) == false) {
+            Debug.dbgPrint("No secret code prepared for the settings");
+            prepare(settings);
+        }
+        SecretCode code = await(next, settings);
+        prepare(settings);
+        return code;
+    }
+
+    /*
+     * Wait at most WAIT_MILLIS for a secret code
+     * code - the secret code being generated
+     * settings - the settings of the new game
+     * return: the secret code, or a locally generated one if it isn't ready
+     */
+    private static SecretCode await(CompletableFuture<SecretCode> code,
+                                    Settings settings) {
+        try {
+            return code.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            Debug.errorPrint("Secret code not ready in " + WAIT_MILLIS
+                    + " ms. The code is generated locally.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Debug.errorPrint("Secret code: " + e.getCause()
+                    + ". The code is generated locally.");
+        }
+        return new SecretCode(settings.getColQuant(), settings.getWidth(),
+                settings.getDoubleCols(), Rng.create(), true);
+    }
+
+    /*
+     * Prepare a secret code in the background
+     * settings - the settings of the next game
+     */
+    synchronized void prepare(Settings settings) {
+        colQuant = settings.getColQuant();
+        width = settings.getWidth();
+        duplicates = settings.getDoubleCols();
+        source = SecretCode.getSource();
+        // Create the generator here, so seeded runs stay deterministic
+        Rng rnd = Rng.create();
+        int colQuant = this.colQuant;
+        int width = this.width;
+        boolean duplicates = this.duplicates;
+        next = CompletableFuture.supplyAsync(
+                () -> new SecretCode(colQuant, width, duplicates, rnd),
+                GENERATOR);
+    }
+
+    // Checks if the prepared code fits the settings and the current source
+    private boolean matches(Settings settings) {
+        return colQuant == settings.getColQuant()
+                && width == settings.getWidth()
+                && duplicates == settings.getDoubleCols()
+                && source == SecretCode.getSource();
+    }
+}
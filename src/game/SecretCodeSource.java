@@ -0,0 +1,26 @@
+package game;
+
+import java.io.IOException;
+
+
+/*
+ * A source of secret codes.
+ * See LocalSecretCodeSource and RandomOrgSecretCodeSource.
+ * The source of new games is set with ControlInterface.setSecretCodeSource().
+ *
+ * A source is used by all games, so it has to be thread-safe.
+ */
+
+public interface SecretCodeSource {
+    /*
+     * Generate the numbers of a secret code
+     * width - width (number of pins) of the code
+     * colQuant - number of different colors
+     * duplicates - allowance of same colors
+     * return: width numbers between 0 and colQuant-1,
+     * all different if duplicates are not allowed
+     * throws: IOException if the source can't provide a code
+     */
+    int[] generate(int width, int colQuant, boolean duplicates)
+            throws IOException;
+}
@@ -1,12 +1,17 @@
 package game;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 
 /*
  * Contains all settings of the game
  */
-class Settings implements Serializable {
+class Settings implements Serializable, Cloneable {
+    // Same as the first version, so games saved by it can still be loaded
+    private static final long serialVersionUID = -2462584198295815239L;
+
     /*
      * Object variables representing the settings
      * Init with standard values
@@ -44,6 +49,41 @@ class Settings implements Serializable {
 
 
     private boolean doublePlayerMode = false;
+
+    /*
+     * Size of the population of the genetic AI
+     * Default value is 2000
+     */
+    private int aiPopulationSize = 2000;
+
+    /*
+     * Max. number of generations of the genetic AI for one try
+     * Default value is 500
+     */
+    private int aiGenerations = 500;
+
+    /*
+     * Number of feasible codes the genetic AI collects before it guesses
+     * Default value is 1
+     */
+    private int aiFeasibleCodesMax = 1;
+
+    /*
+     * Adaptive mode of the genetic AI
+     * True = the population is sized from the code space and the remaining
+     * candidates, and the search stops when the time budget expires
+     * False = the fixed population size and number of generations are used
+     * False by default
+     */
+    private boolean aiAdaptive = false;
+
+    /*
+     * Time budget of the genetic AI for one guess in adaptive mode
+     * in milliseconds
+     * Default value is 2000
+     */
+    private long aiTimeBudget = 2000;
+
     /*
      * Getter for game mode
      * True = AI: Codebreaker, Human: Codemaker
@@ -133,4 +173,116 @@ class Settings implements Serializable {
     public void setDoubleCols(boolean doubleCols) {
         this.doubleCols = doubleCols;
     }
+
+    /*
+     * Getter for the population size of the genetic AI
+     * return: the number of codes in a generation
+     */
+    public int getAiPopulationSize() {
+        return aiPopulationSize;
+    }
+
+    /*
+     * Setter for the population size of the genetic AI
+     * size - the number of codes in a generation
+     */
+    public void setAiPopulationSize(int size) {
+        aiPopulationSize = size;
+    }
+
+    /*
+     * Getter for the max. number of generations of the genetic AI
+     * return: the max. number of generations for one try
+     */
+    public int getAiGenerations() {
+        return aiGenerations;
+    }
+
+    /*
+     * Setter for the max. number of generations of the genetic AI
+     * generations - the max. number of generations for one try
+     */
+    public void setAiGenerations(int generations) {
+        aiGenerations = generations;
+    }
+
+    /*
+     * Getter for the number of feasible codes the genetic AI collects
+     * return: the number of feasible codes
+     */
+    public int getAiFeasibleCodesMax() {
+        return aiFeasibleCodesMax;
+    }
+
+    /*
+     * Setter for the number of feasible codes the genetic AI collects
+     * max - the number of feasible codes
+     */
+    public void setAiFeasibleCodesMax(int max) {
+        aiFeasibleCodesMax = max;
+    }
+
+    /*
+     * Getter for the adaptive mode of the genetic AI
+     * return: true if the adaptive mode is on, false otherwise
+     */
+    public boolean getAiAdaptive() {
+        return aiAdaptive;
+    }
+
+    /*
+     * Setter for the adaptive mode of the genetic AI
+     * adaptive - true for the adaptive mode, false for fixed sizes
+     */
+    public void setAiAdaptive(boolean adaptive) {
+        aiAdaptive = adaptive;
+    }
+
+    /*
+     * Getter for the time budget of the genetic AI in adaptive mode
+     * return: the time budget for one guess in milliseconds
+     */
+    public long getAiTimeBudget() {
+        return aiTimeBudget;
+    }
+
+    /*
+     * Setter for the time budget of the genetic AI in adaptive mode
+     * millis - the time budget for one guess in milliseconds
+     */
+    public void setAiTimeBudget(long millis) {
+        aiTimeBudget = millis;
+    }
+
+    /*
+     * Read the settings of a saved game
+     * Saves of the first version don't contain the AI settings. Fields
+     * missing in the stream keep their values, so the defaults are set
+     * first (deserialization doesn't run the field initializers).
+     *
+     * in - the stream to read from
+     * throws IOException
+     * throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        aiPopulationSize = 2000;
+        aiGenerations = 500;
+        aiFeasibleCodesMax = 1;
+        aiAdaptive = false;
+        aiTimeBudget = 2000;
+        in.defaultReadObject();
+    }
+
+    /*
+     * Creates a copy of the settings
+     * return: new settings with the same values
+     */
+    public Settings copy() {
+        try {
+            return (Settings) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
 }
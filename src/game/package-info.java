@@ -8,6 +8,10 @@ package game;
  * This is the only public class in the game package. This design is used to provide a single
  * interface for a frontend (or an AI) which guarantees a correct and save execution.
  *
+ * EntropyBuffer:
+ * A buffer of true random numbers from random.org, fetched in large
+ * batches and refilled in the background.
+ *
  * Game:
  * Game-engine class. Controls the game flow.
  *
@@ -15,13 +19,37 @@ package game;
  * The actual game field. This includes the guess rows and the result rows.
  * The active row number is stored here also.
  *
+ * GameRecord:
+ * The result of a finished game for the game history of the Database.
+ *
+ * GameStatistics:
+ * Aggregated results (win rate, tries, percentiles) of the games with
+ * the same settings and solver.
+ *
  * HTTPUtils:
  * Low level class-util that handles all http work for obtaining results
- * without third-party libs.
+ * without third-party libs. Reuses connections, has timeouts and retries
+ * requests while the server is busy.
+ *
+ * LeaderboardEntry:
+ * The score of a user in the leaderboard of the Database.
+ *
+ * LocalSecretCodeSource:
+ * Generates secret codes locally, without any network access.
+ * The default source of secret codes.
+ *
+ * RandomOrgSecretCodeSource:
+ * Generates secret codes with true random numbers of random.org.
  *
  * SecretCode:
  * This class represents the secret code the player has to guess.
  *
+ * SecretCodePipeline:
+ * Prepares the secret code of the next game in the background.
+ *
+ * SecretCodeSource:
+ * A source of secret codes, see ControlInterface.setSecretCodeSource().
+ *
  * Settings:
  * Contains all settings of the game.
  */
\ No newline at end of file
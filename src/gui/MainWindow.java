@@ -1,13 +1,18 @@
 package gui;
 
 
+import ai.CancellationToken;
 import ai.Clues;
+import ai.FeedbackTable;
 import ai.GeneticSolver;
 import common.Color;
 import common.Debug;
 import common.Row;
 import game.ControlInterface;
 import game.Database;
+import game.GameRecord;
+import game.GameStatistics;
+import game.LeaderboardEntry;
 
 import javax.sound.sampled.*;
 import javax.swing.*;
@@ -17,8 +22,12 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 
 
 /*
@@ -38,10 +47,12 @@ import java.util.Date;
 
 public class MainWindow extends javax.swing.JFrame {
     /*
-     * The delay between two guesses (if the makeGuess()-Function of the AI was fast enough).
+     * The delay between two guesses of an AI game.
      * Object variables used by various functions.
      */
     private final int AI_GUESS_DELAY = 500;
+    // Number of users shown in the leaderboard
+    private final int LEADERBOARD_SIZE = 10;
     private static ControlInterface ci = new ControlInterface();
     private JDialog aboutDialog;
     private JButton chosenColButton;
@@ -63,6 +74,14 @@ public class MainWindow extends javax.swing.JFrame {
     private JLabel gamePlaceholder;
     private JLabel gameState;
     private Timer aiTimer;
+    private SolverWorker aiWorker;
+    private SolverWorker hintWorker;
+    // Held by a SolverWorker while its AI reads the game
+    private final Object aiLock = new Object();
+    // When the first guess of the game could be made, see recordGame()
+    private long gameStartTime;
+    // The solver of an AI game, "human" for a player, see recordGame()
+    private String gamePlayer = "human";
     private Timer timer;
     private Login login;
     Database db = game.Database.getInstance();
@@ -602,6 +621,17 @@ public class MainWindow extends javax.swing.JFrame {
 
         gameMenu.add(new JPopupMenu.Separator());
 
+        JMenuItem statisticsMenuItem = new JMenuItem("Statistics");
+        statisticsMenuItem.addActionListener(
+                new java.awt.event.ActionListener() {
+                    public void actionPerformed(java.awt.event.ActionEvent evt) {
+                        statisticsMenuItemActionPerformed(evt);
+                    }
+                });
+        gameMenu.add(statisticsMenuItem);
+
+        gameMenu.add(new JPopupMenu.Separator());
+
         JMenuItem quitMenuItem = new JMenuItem("Quit Game");
         quitMenuItem.setAccelerator(javax.swing.KeyStroke.getKeyStroke(
                 java.awt.event.KeyEvent.VK_Q,
@@ -705,9 +735,24 @@ public class MainWindow extends javax.swing.JFrame {
     private void initNewGame() {
         this.requestFocus();
 
-        // Stop AI guess timer
-        if (aiTimer != null) {
-            aiTimer.stop();
+        // Stop the AI and discard guesses in progress
+        cancelAI();
+        gamePlayer = "human";
+
+        // Prepare the AI while the secret code is set: build the feedback
+        // table in the background. The settings are read here, the solver
+        // itself is created by the first guess (see doAIGame()).
+        if (ci.getSettingAiMode() == true && ci.getGameEnded() == false) {
+            final int width = ci.getSettingWidth();
+            final int colQuant = ci.getSettingColQuant();
+            final boolean doubleCols = ci.getSettingDoubleCols();
+            new SwingWorker<Void, Void>() {
+                @Override
+                protected Void doInBackground() {
+                    FeedbackTable.get(width, colQuant, doubleCols);
+                    return null;
+                }
+            }.execute();
         }
 
         // Set state
@@ -727,6 +772,9 @@ public class MainWindow extends javax.swing.JFrame {
         initSecretCode();
         initColorTable();
         restartTimer();
+
+        // A player can guess now, the AI when the secret code is set
+        gameStartTime = System.currentTimeMillis();
     }
 
     /*
@@ -955,6 +1003,8 @@ public class MainWindow extends javax.swing.JFrame {
         int width = gameWidthSlider.getValue();
         // Check settings.
         if(width <= range || dc) {
+            // Stop the AI before the settings of its game change.
+            cancelAI();
             // Set settings.
             ci.setSettingDoubleCols(dc);
             ci.setSettingColQuant(range);
@@ -995,11 +1045,15 @@ public class MainWindow extends javax.swing.JFrame {
                 fileChooser.getSelectedFile().getAbsolutePath() == null) {
             return;
         }
+        // The AI must not read the game while it is replaced
+        cancelAI();
         try {
             Debug.dbgPrint(fileChooser.getSelectedFile().getAbsolutePath());
             // Load game
-            ci.load(
-                    fileChooser.getSelectedFile().getAbsolutePath());
+            synchronized (aiLock) {
+                ci.load(
+                        fileChooser.getSelectedFile().getAbsolutePath());
+            }
         }
         catch (Exception e) {
             Debug.errorPrint(e.toString());
@@ -1035,6 +1089,43 @@ public class MainWindow extends javax.swing.JFrame {
             return;
         }
     }
+
+    /*
+     * Show the leaderboard and the statistics of all games.
+     * They are read in the background, as the statistics are computed by
+     * the database.
+     * evt - the triggered event. Not used.
+     */
+    private void statisticsMenuItemActionPerformed(
+            java.awt.event.ActionEvent evt) {
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() {
+                StringBuilder text = new StringBuilder("Leaderboard\n");
+                for (LeaderboardEntry entry : db.getLeaderboard(LEADERBOARD_SIZE)) {
+                    text.append(entry).append('\n');
+                }
+                text.append("\nGames\n");
+                for (GameStatistics stats : db.getStatistics()) {
+                    text.append(stats).append('\n');
+                }
+                return text.toString();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    JTextArea area = new JTextArea(get(), 15, 60);
+                    area.setEditable(false);
+                    JOptionPane.showMessageDialog(MainWindow.this,
+                            new JScrollPane(area), "Statistics",
+                            JOptionPane.PLAIN_MESSAGE);
+                } catch (InterruptedException | ExecutionException e) {
+                    Debug.errorPrint(e.toString());
+                }
+            }
+        }.execute();
+    }
     // </editor-fold>
 
     // <editor-fold defaultstate="collapsed" desc="Sub Functions">
@@ -1198,6 +1289,7 @@ public class MainWindow extends javax.swing.JFrame {
         if (state == 1) {
             timer.stop();
             revealSecretCode();
+            recordGame(true);
             //playSound("resources/Won.wav");
             playSound("audio/phrases/won.wav");
             this.setEnabled(false);
@@ -1218,6 +1310,7 @@ public class MainWindow extends javax.swing.JFrame {
         } else if (state == -1) {
             timer.stop();
             revealSecretCode();
+            recordGame(false);
             playSound("resources/Lost.wav");
             this.setEnabled(false);
             if (ci.getSettingAiMode() == true) {
@@ -1352,41 +1445,186 @@ public class MainWindow extends javax.swing.JFrame {
         }
     }
 
+    /*
+     * Store the result of the finished game in the game history.
+     * The time is counted from the moment the first guess could be made,
+     * so setting the secret code for the AI doesn't count.
+     * won - true if the code was broken, false otherwise
+     * see game.Database#recordGame(GameRecord)
+     */
+    private void recordGame(boolean won) {
+        db.recordGame(new GameRecord(login.getName(), ci.getSettingWidth(),
+                ci.getSettingColQuant(), ci.getSettingDoubleCols(),
+                ci.getSettingMaxTries(), ci.getActiveRowNumber(), won,
+                System.currentTimeMillis() - gameStartTime, gamePlayer));
+    }
+
     /*
      * Run an AI game until the game is solved.
-     * While the AI is guessing the GUI is locked.
-     * Every "AI_GUESS_DELAY"ms the timer makes a guess. This provides the GUI
-     * enough time between two guesses to repaint.
+     * The guesses are computed in the background (see SolverWorker), so the
+     * GUI stays responsive and shows the progress of the AI. A new game
+     * cancels the AI game. The AI is created in the background with the
+     * first guess, its feedback table was prepared by initNewGame().
+     * "AI_GUESS_DELAY"ms after a guess was shown the timer starts the next
+     * guess. This provides the GUI enough time between two guesses to repaint.
      * In most cases the AI can guess very fast. Only if the game width is
      * large and the color quantity is high it will take longer in later guesses.
-     * If a guess creation takes more than "AI_GUESS_DELAY"ms the timer
-     * waits until the guess is computed.
      *
      * see #AI_GUESS_DELAY
      */
     private void doAIGame() {
-        final GeneticSolver gs = new GeneticSolver(ci);
-        gs.initResults();
+        // Completed by the first guess, the next guesses use the same AI
+        final CompletableFuture<GeneticSolver> solver =
+                new CompletableFuture<>();
         gameState.setText("AI is guessing. Please wait...");
-        setEnabled(false);
+        gameStartTime = System.currentTimeMillis();
 
-        ActionListener taskPerformer = new ActionListener() {
+        aiTimer = new Timer(AI_GUESS_DELAY, new ActionListener() {
             public void actionPerformed(ActionEvent evt) {
-                // Do a guess every AI_GUESS_DELAY ms.
+                startAIGuess(solver);
+            }
+        });
+        aiTimer.setRepeats(false);
+        aiTimer.start();
+    }
+
+    /*
+     * Compute the next guess of an AI game in the background
+     * The guess is played on the event dispatch thread when it is ready.
+     * The guesses run one after another, so only the first one creates
+     * the AI.
+     * solver - the AI of the game, not completed before the first guess
+     */
+    private void startAIGuess(final CompletableFuture<GeneticSolver> solver) {
+        aiWorker = new SolverWorker(() -> {
+            if (solver.isDone() == false) {
+                solver.complete(new GeneticSolver(ci));
+            }
+            return solver.join();
+        }) {
+            void guessDone(Row guess) {
+                if (ci.getGameEnded() == true) {
+                    return;
+                }
+                // Completed by the worker before it returned the guess
+                gamePlayer = solver.getNow(null).getClass().getSimpleName();
+                ci.writeToGameField(guess.getColors());
+                int state = ci.turn();
+                showGameRow(ci.getActiveRowNumber()-1);
+                showResultRow(ci.getActiveRowNumber()-1);
+                parseGameState(state);
                 if (ci.getGameEnded() == false) {
-                    int state = gs.makeGuess();
-                    showGameRow(ci.getActiveRowNumber()-1);
-                    showResultRow(ci.getActiveRowNumber()-1);
-                    parseGameState(state);
-                } else {
-                    aiTimer.stop();
-                    setEnabled(true);
+                    gameState.setText("AI is guessing. Please wait...");
+                    aiTimer.restart();
                 }
             }
         };
+        aiWorker.execute();
+    }
 
-        aiTimer = new Timer(AI_GUESS_DELAY, taskPerformer);
-        aiTimer.start();
+    // Checks if an AI game was started and not cancelled
+    private boolean isAIRunning() {
+        return aiWorker != null || (aiTimer != null && aiTimer.isRunning());
+    }
+
+    // Stop the AI guess timer and cancel the guesses in progress
+    private void cancelAI() {
+        if (aiTimer != null) {
+            aiTimer.stop();
+        }
+        if (aiWorker != null) {
+            aiWorker.stop();
+            aiWorker = null;
+        }
+        if (hintWorker != null) {
+            hintWorker.stop();
+            hintWorker = null;
+        }
+    }
+
+    /*
+     * Computes a guess of the AI in the background
+     * The progress of the AI is shown in the game state label. When the guess
+     * is ready, guessDone(Row) is called on the event dispatch thread,
+     * unless the worker was cancelled before.
+     * The AI only reads the game while it is guessing. All changes of the
+     * game are made on the event dispatch thread. A change that replaces
+     * the game stops the workers and waits for the AI lock first, see
+     * loadMenuItemActionPerformed().
+     * stop() cancels the worker and the AI, so abandoned guesses don't
+     * keep the CPU busy.
+     * The solver is supplied in the background, so creating a new one
+     * doesn't block the event dispatch thread.
+     */
+    private abstract class SolverWorker extends SwingWorker<Row, String> {
+        private final Supplier<GeneticSolver> solverSupplier;
+        private final CancellationToken token = new CancellationToken();
+
+        SolverWorker(Supplier<GeneticSolver> solverSupplier) {
+            this.solverSupplier = solverSupplier;
+        }
+
+        // Use the guess, called on the event dispatch thread
+        abstract void guessDone(Row guess);
+
+        // Stop the AI and discard the guess
+        void stop() {
+            token.cancel();
+            cancel(false);
+        }
+
+        @Override
+        protected Row doInBackground() {
+            synchronized (aiLock) {
+                // Stopped before it started, the game may be replaced
+                if (token.isCancelled() == true) {
+                    return null;
+                }
+                return guess();
+            }
+        }
+
+        // Compute the guess, called with the AI lock held
+        private Row guess() {
+            GeneticSolver solver = solverSupplier.get();
+            solver.setProgressListener(new ai.ProgressListener() {
+                public void progress(int generation, int bestFitness,
+                                     int feasibleCount) {
+                    publish("AI is guessing. Generation " + generation
+                            + ", best fitness " + bestFitness + ", "
+                            + feasibleCount + " feasible code(s)...");
+                }
+            });
+            Duration budget = null;
+            if (ci.getSettingAiAdaptive() == true) {
+                budget = Duration.ofMillis(ci.getSettingAiTimeBudget());
+            }
+            try {
+                return solver.generateGuess(budget, token).getRow();
+            } finally {
+                solver.setProgressListener(null);
+            }
+        }
+
+        @Override
+        protected void process(java.util.List<String> chunks) {
+            // Only the latest progress is of interest
+            if (isCancelled() == false) {
+                gameState.setText(chunks.get(chunks.size() - 1));
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() == true) {
+                return;
+            }
+            try {
+                guessDone(get());
+            } catch (InterruptedException | ExecutionException e) {
+                Debug.errorPrint("AI: Guess failed: " + e.getCause());
+            }
+        }
     }
 
     // </editor-fold>
@@ -1407,6 +1645,7 @@ public class MainWindow extends javax.swing.JFrame {
      */
     private void newGameMenuItemActionPerformed(
             java.awt.event.ActionEvent evt) {
+        cancelAI();
         ci.newGame();
         initNewGame();
     }
@@ -1430,17 +1669,33 @@ public class MainWindow extends javax.swing.JFrame {
             java.awt.event.ActionEvent evt) {
         playSound("resources/ClickOn.wav");
         if (ci.getGameEnded() == false && ci.getSettingAiMode() == false) {
-            int i = ci.getSettingWidth();
-            GeneticSolver hint = new GeneticSolver(ci);
-            hint.initResults();
-            Row r = hint.generateGuess();
-            for (Color color : r.getColors()) {
-                gameButtons[ci.getActiveRowNumber()]
-                        [i].setBackground(new java.awt.Color(color.getRGB()));
-                gameButtons[ci.getActiveRowNumber()]
-                        [i].setText(color.getNum());
-                i++;
+            if (hintWorker != null && hintWorker.isDone() == false) {
+                return;
             }
+            final int row = ci.getActiveRowNumber();
+            final String state = gameState.getText();
+            hintWorker = new SolverWorker(() -> {
+                GeneticSolver hint = new GeneticSolver(ci);
+                hint.initResults();
+                return hint;
+            }) {
+                void guessDone(Row r) {
+                    gameState.setText(state);
+                    // The row was checked while the hint was computed
+                    if (ci.getGameEnded() == true
+                            || ci.getActiveRowNumber() != row) {
+                        return;
+                    }
+                    int i = ci.getSettingWidth();
+                    for (Color color : r.getColors()) {
+                        gameButtons[row][i].setBackground(
+                                new java.awt.Color(color.getRGB()));
+                        gameButtons[row][i].setText(color.getNum());
+                        i++;
+                    }
+                }
+            };
+            hintWorker.execute();
         }
     }
 
@@ -1570,6 +1825,10 @@ public class MainWindow extends javax.swing.JFrame {
     private void secretCodeButtonsActionPerformed(
             java.awt.event.ActionEvent evt) {
         if (ci.getSettingAiMode() && ci.getGameEnded() == false) {
+            // The secret code can't be changed while the AI is guessing
+            if (isAIRunning() == true) {
+                return;
+            }
             if (ci.getSettingDoubleCols() == false) {
                 // Check for double colors
                 for (int i = 0; i < secretCodeButtons.length; i++) {
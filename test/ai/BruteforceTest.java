@@ -0,0 +1,108 @@
+package ai;
+
+import common.Code;
+import common.Rng;
+import game.ControlInterface;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*
+ * Tests the enumeration of codes without duplicate colors of Bruteforce,
+ * see Bruteforce.firstPermutation() and Bruteforce.nextPermutation(int),
+ * and that it breaks the code, also of a game replaced while playing.
+ */
+public class BruteforceTest {
+
+    @Test
+    public void permutationsEnumerateEveryCodeOnce() {
+        int[][] spaces = {{1, 1}, {1, 6}, {4, 4}, {4, 6}, {5, 8}, {3, 10}};
+        for (int[] space : spaces) {
+            int width = space[0];
+            int colQuant = space[1];
+            Bruteforce bf = new Bruteforce(control(width, colQuant, false));
+            boolean[] seen = new boolean[(int) Code.spaceSize(width, colQuant)];
+            int count = 0;
+            int last = -1;
+            for (int code = bf.firstPermutation(); code >= 0;
+                 code = bf.nextPermutation(code)) {
+                assertFalse(Code.containsDoubleCols(code, width));
+                int index = Code.index(code, width, colQuant);
+                // Ascending index order, so no code comes twice
+                assertTrue(index > last);
+                last = index;
+                seen[index] = true;
+                count++;
+            }
+            assertEquals(permutations(width, colQuant), count);
+            for (int i = 0; i < seen.length; i++) {
+                assertEquals(Code.containsDoubleCols(
+                        Code.fromIndex(i, width, colQuant), width) == false,
+                        seen[i]);
+            }
+        }
+    }
+
+    @Test
+    public void breaksTheCode() {
+        for (boolean doubleCols : new boolean[] {true, false}) {
+            ControlInterface ci = control(4, 6, doubleCols);
+            Bruteforce bf = new Bruteforce(ci);
+            for (int g = 0; g < 10; g++) {
+                ci.newGame(new Rng(g));
+                int state = 0;
+                while (state == 0) {
+                    state = bf.makeGuess();
+                }
+                assertEquals(1, state);
+            }
+        }
+    }
+
+    @Test
+    public void solvesGameReplacedWhilePlaying() {
+        ControlInterface ci = control(4, 6, true);
+        Bruteforce bf = new Bruteforce(ci);
+        for (int g = 0; g < 10; g++) {
+            ci.newGame(new Rng(g));
+            bf.makeGuess();
+            bf.makeGuess();
+            // The new game gets as many rows before the solver sees it, so
+            // only the rows tell that it was replaced
+            ci.newGame(new Rng(100 + g));
+            for (int r = 0; r < 2; r++) {
+                ci.writeToGameField(Code.toRow(Code.fromIndex(500 + r, 4, 6), 4)
+                        .getColors());
+                ci.turn();
+            }
+            int state = 0;
+            while (state == 0) {
+                state = bf.makeGuess();
+            }
+            assertEquals(1, state);
+        }
+    }
+
+    // Number of codes without duplicate colors
+    private static int permutations(int width, int colQuant) {
+        int count = 1;
+        for (int i = 0; i < width; i++) {
+            count *= colQuant - i;
+        }
+        return count;
+    }
+
+    private static ControlInterface control(int width, int colQuant,
+                                            boolean doubleCols) {
+        ControlInterface ci = new ControlInterface();
+        ci.setSettingColQuant(colQuant);
+        ci.setSettingWidth(width);
+        ci.setSettingDoubleCols(doubleCols);
+        ci.setSettingMaxTries(20);
+        ci.newGame(new Rng(0));
+        return ci;
+    }
+}
@@ -0,0 +1,38 @@
+package ai;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*
+ * Tests that CodeHashSet finds duplicate codes and forgets them on clear().
+ */
+public class CodeHashSetTest {
+
+    @Test
+    public void findsDuplicates() {
+        CodeHashSet set = new CodeHashSet(1000);
+        for (int code = 0; code < 1000; code++) {
+            assertTrue(set.add(code * 17));
+        }
+        for (int code = 0; code < 1000; code++) {
+            assertFalse(set.add(code * 17));
+        }
+        assertTrue(set.add(1000 * 17));
+    }
+
+    @Test
+    public void clearStartsOver() {
+        CodeHashSet set = new CodeHashSet(64);
+        // Many rounds, every one with colliding codes
+        for (int round = 0; round < 10000; round++) {
+            set.clear();
+            for (int code = 0; code < 64; code++) {
+                assertTrue(set.add(code << 16));
+            }
+            assertFalse(set.add(0));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ai;
+
+import common.Code;
+import common.Rng;
+import game.ControlInterface;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*
+ * Tests Deadline and that the solvers keep their time budget.
+ */
+public class DeadlineTest {
+
+    @Test
+    public void expires() throws InterruptedException {
+        assertTrue(new Deadline(Duration.ZERO).isExpired());
+        assertTrue(new Deadline(Duration.ofMillis(-5)).isExpired());
+        Deadline deadline = new Deadline(Duration.ofMillis(50));
+        assertFalse(deadline.isExpired());
+        Thread.sleep(60);
+        assertTrue(deadline.isExpired());
+    }
+
+    @Test
+    public void unbounded() {
+        assertFalse(new Deadline(null).isExpired());
+        // Too long for nanoTime arithmetic
+        assertFalse(new Deadline(Duration.ofDays(365L * 1000)).isExpired());
+        assertFalse(new Deadline(null).share(0).isExpired());
+    }
+
+    @Test
+    public void cancelled() {
+        CancellationToken token = new CancellationToken();
+        Deadline deadline = new Deadline(null, token);
+        Deadline share = new Deadline(Duration.ofSeconds(10), token).share(0.5);
+        assertFalse(deadline.isExpired());
+        assertFalse(share.isExpired());
+        token.cancel();
+        assertTrue(deadline.isExpired());
+        assertTrue(share.isExpired());
+    }
+
+    @Test
+    public void shareEndsEarlier() throws InterruptedException {
+        Deadline deadline = new Deadline(Duration.ofMillis(200));
+        Deadline share = deadline.share(0.25);
+        assertTrue(deadline.share(0).isExpired());
+        Thread.sleep(80);
+        assertTrue(share.isExpired());
+        assertFalse(deadline.isExpired());
+    }
+
+    @Test
+    public void solversKeepTheBudget() {
+        // 8 positions and colors: the candidate set alone takes longer
+        // to build than the budget
+        List<Function<ControlInterface, SolvingAlgorithm>> solvers = List.of(
+                GeneticSolver::new, IslandSolver::new, KnuthSolver::new,
+                Bruteforce::new, RandomGuesses::new);
+        for (Function<ControlInterface, SolvingAlgorithm> create : solvers) {
+            ControlInterface ci = new ControlInterface();
+            ci.setSettingColQuant(8);
+            ci.setSettingWidth(8);
+            ci.setSettingDoubleCols(true);
+            ci.setSettingMaxTries(20);
+            ci.newGame(new Rng(0));
+            ci.writeToGameField(Code.toRow(Code.fromIndex(12345, 8, 8), 8)
+                    .getColors());
+            ci.turn();
+            SolvingAlgorithm solver = create.apply(ci);
+            for (int n = 0; n < 3; n++) {
+                long start = System.nanoTime();
+                Guess guess = solver.generateGuess(Duration.ofMillis(20));
+                long elapsed = System.nanoTime() - start;
+                assertNotNull(guess);
+                // Generous for slow machines, the unbounded search takes
+                // seconds
+                assertTrue(elapsed < 500_000_000L,
+                        solver.getClass().getSimpleName() + " took "
+                        + elapsed / 1000000 + "ms");
+            }
+        }
+    }
+}
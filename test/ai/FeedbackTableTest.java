@@ -0,0 +1,58 @@
+package ai;
+
+import common.Code;
+import common.Score;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*
+ * Tests that FeedbackTable holds the feedback of Score.compare for every pair
+ * of codes, and the dense indices of the codes.
+ */
+public class FeedbackTableTest {
+
+    @Test
+    public void tableMatchesScore() {
+        for (boolean doubleCols : new boolean[] {true, false}) {
+            FeedbackTable table = FeedbackTable.get(4, 6, doubleCols);
+            assertNotNull(table);
+            assertEquals(doubleCols ? 1296 : 360, table.size());
+            for (int g = 0; g < table.size(); g++) {
+                for (int s = 0; s < table.size(); s++) {
+                    assertEquals(Score.compare(table.code(g), table.code(s), 4),
+                            table.feedback(g, s));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void denseIndices() {
+        FeedbackTable table = FeedbackTable.get(4, 6, false);
+        for (int i = 0; i < table.size(); i++) {
+            assertEquals(i, table.indexOf(table.code(i)));
+            assertFalse(Code.containsDoubleCols(table.code(i), 4));
+        }
+        // Codes with duplicate colors are not part of the table
+        assertEquals(-1, table.indexOf(0));
+    }
+
+    @Test
+    public void cachesTheLastTable() {
+        FeedbackTable table = FeedbackTable.get(4, 6, true);
+        assertTrue(table == FeedbackTable.get(4, 6, true));
+        FeedbackTable.get(4, 6, false);
+        assertFalse(table == FeedbackTable.get(4, 6, true));
+    }
+
+    @Test
+    public void largeSpaceHasNoTable() {
+        assertNull(FeedbackTable.get(8, 10, true));
+    }
+}
@@ -0,0 +1,154 @@
+package ai;
+
+import common.Code;
+import common.Rng;
+import common.Score;
+import game.ControlInterface;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*
+ * Tests the search of the GeneticSolver: the same seed gives the same
+ * search on any pool, the parents are the fittest codes, one solver plays
+ * several games, and it collects the configured number of distinct
+ * feasible codes.
+ */
+public class GeneticSolverTest {
+
+    private static ControlInterface control(int feasibleCodesMax) {
+        ControlInterface ci = new ControlInterface();
+        ci.setSettingColQuant(6);
+        ci.setSettingWidth(4);
+        ci.setSettingDoubleCols(true);
+        ci.setSettingMaxTries(20);
+        ci.setSettingAiFeasibleCodesMax(feasibleCodesMax);
+        ci.newGame(new Rng(0));
+        return ci;
+    }
+
+    // Plays a guess on the game
+    private static void play(ControlInterface ci, int code) {
+        ci.writeToGameField(Code.toRow(code, 4).getColors());
+        ci.turn();
+    }
+
+    @Test
+    public void sameSearchOnAnyPool() {
+        ControlInterface ci = control(5);
+        play(ci, Code.fromIndex(7, 4, 6));
+        GeneticSolver[] solvers = new GeneticSolver[3];
+        int[] parallelism = {1, 2, 4};
+        for (int i = 0; i < solvers.length; i++) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism[i]);
+            solvers[i] = new GeneticSolver(ci, pool, new Rng(3));
+            solvers[i].startGuess(new Deadline(null));
+            while (solvers[i].evolve(1) == false) {
+            }
+            pool.shutdown();
+        }
+        for (int i = 1; i < solvers.length; i++) {
+            assertEquals(solvers[0].getGeneration(), solvers[i].getGeneration());
+            assertEquals(solvers[0].getBestFitness(), solvers[i].getBestFitness());
+            assertArrayEquals(solvers[0].getFeasibleCodes(),
+                    solvers[i].getFeasibleCodes());
+        }
+    }
+
+    @Test
+    public void parentsAreSortedByFitness() {
+        ControlInterface ci = control(1);
+        ci.setSettingAiPopulationSize(500);
+        int[] guesses = {Code.fromIndex(7, 4, 6), Code.fromIndex(500, 4, 6)};
+        for (int guess : guesses) {
+            play(ci, guess);
+        }
+        GeneticSolver solver = new GeneticSolver(ci, ForkJoinPool.commonPool(),
+                new Rng(4));
+        solver.startGuess(new Deadline(null));
+        int[] parents = new int[500];
+        // The best fifth of the population
+        assertEquals(100, solver.emigrants(parents, 0, parents.length));
+        int last = fitness(ci, parents[0]);
+        assertEquals(solver.getBestFitness(), last);
+        for (int i = 1; i < 100; i++) {
+            int fitness = fitness(ci, parents[i]);
+            assertTrue(fitness >= last);
+            last = fitness;
+        }
+    }
+
+    // The distance of the feedback of a code to the results of the game
+    private static int fitness(ControlInterface ci, int code) {
+        int fitness = 0;
+        for (int r = 0; r < ci.getActiveRowNumber(); r++) {
+            int result = Code.feedback(ci.getResultRow(r));
+            int score = Score.compare(Code.of(ci.getGameFieldRow(r)), code, 4);
+            fitness += Math.abs(Code.blacks(score) - Code.blacks(result))
+                    + Math.abs(Code.whites(score) - Code.whites(result));
+        }
+        return fitness;
+    }
+
+    @Test
+    public void playsConsecutiveGames() {
+        for (boolean adaptive : new boolean[] {false, true}) {
+            ControlInterface ci = control(1);
+            ci.setSettingAiAdaptive(adaptive);
+            // The buffers and tasks of one solver are reused for every
+            // guess, and resized in the adaptive mode
+            GeneticSolver solver = new GeneticSolver(ci,
+                    ForkJoinPool.commonPool(), new Rng(5));
+            for (int g = 0; g < 10; g++) {
+                ci.newGame(new Rng(g));
+                int state = 0;
+                while (state == 0) {
+                    Guess guess = solver.generateGuess(null);
+                    assertEquals(guess.isConsistent(),
+                            Clues.isFeasible(ci, guess.getRow()));
+                    ci.writeToGameField(guess.getRow().getColors());
+                    state = ci.turn();
+                }
+                assertEquals(1, state);
+            }
+        }
+    }
+
+    // Runs one search and checks the feasible codes it found
+    private static void assertCollects(ControlInterface ci, int max) {
+        GeneticSolver solver = new GeneticSolver(ci, ForkJoinPool.commonPool(),
+                new Rng(1));
+        solver.startGuess(new Deadline(Duration.ofSeconds(30)));
+        while (solver.evolve(1) == false) {
+        }
+        int[] codes = solver.getFeasibleCodes();
+        assertEquals(max, codes.length);
+        for (int i = 0; i < codes.length; i++) {
+            for (int j = 0; j < i; j++) {
+                assertFalse(codes[i] == codes[j]);
+            }
+            assertTrue(Clues.isFeasible(ci, Code.toRow(codes[i], 4)));
+        }
+    }
+
+    @Test
+    public void collectsMaxCodesForFirstGuess() {
+        assertCollects(control(20), 20);
+    }
+
+    @Test
+    public void collectsMaxFeasibleCodes() {
+        ControlInterface ci = control(10);
+        play(ci, Code.fromIndex(7, 4, 6));
+        // Fewer codes may be left than the max
+        int max = Math.min(10, ci.getCandidates().size());
+        assertCollects(ci, max);
+    }
+}
@@ -0,0 +1,89 @@
+package ai;
+
+import common.Code;
+import common.Rng;
+import game.ControlInterface;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*
+ * Tests that the IslandSolver plays games with any number of islands, and
+ * that its search only depends on the seed, not on the pool.
+ */
+public class IslandSolverTest {
+
+    private static ControlInterface control() {
+        ControlInterface ci = new ControlInterface();
+        ci.setSettingColQuant(6);
+        ci.setSettingWidth(4);
+        ci.setSettingDoubleCols(true);
+        ci.setSettingMaxTries(20);
+        ci.newGame(new Rng(0));
+        return ci;
+    }
+
+    @Test
+    public void playsGames() {
+        for (int islands : new int[] {1, 2, 5}) {
+            ControlInterface ci = control();
+            IslandSolver solver = new IslandSolver(ci, islands,
+                    ForkJoinPool.commonPool(), new Rng(islands));
+            for (int g = 0; g < 5; g++) {
+                ci.newGame(new Rng(g));
+                int state = 0;
+                while (state == 0) {
+                    Guess guess = solver.generateGuess(null);
+                    assertEquals(guess.isConsistent(),
+                            Clues.isFeasible(ci, guess.getRow()));
+                    ci.writeToGameField(guess.getRow().getColors());
+                    state = ci.turn();
+                }
+                assertEquals(1, state);
+            }
+        }
+    }
+
+    @Test
+    public void sameGuessOnAnyPool() {
+        ControlInterface ci = control();
+        ci.writeToGameField(Code.toRow(Code.fromIndex(7, 4, 6), 4).getColors());
+        ci.turn();
+        int[] parallelism = {1, 3};
+        Guess[] guesses = new Guess[parallelism.length];
+        for (int i = 0; i < parallelism.length; i++) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism[i]);
+            guesses[i] = new IslandSolver(ci, 4, pool, new Rng(6))
+                    .generateGuess(null);
+            pool.shutdown();
+        }
+        assertEquals(guesses[0].getRow(), guesses[1].getRow());
+    }
+
+    @Test
+    public void reportsProgressOfAllIslands() {
+        ControlInterface ci = control();
+        ci.writeToGameField(Code.toRow(Code.fromIndex(7, 4, 6), 4).getColors());
+        ci.turn();
+        IslandSolver solver = new IslandSolver(ci, 3,
+                ForkJoinPool.commonPool(), new Rng(7));
+        int[] last = {0, Integer.MAX_VALUE, 0};
+        solver.setProgressListener((generation, bestFitness, feasibleCount) -> {
+            // The generations of all islands add up
+            assertTrue(generation > last[0]);
+            last[0] = generation;
+            last[1] = bestFitness;
+            last[2] = feasibleCount;
+        });
+        Guess guess = solver.generateGuess(null);
+        // Without a budget the search ends with a feasible code
+        assertTrue(guess.isConsistent());
+        assertTrue(last[0] > 0);
+        assertEquals(0, last[1]);
+        assertTrue(last[2] > 0);
+    }
+}
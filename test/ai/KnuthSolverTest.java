@@ -0,0 +1,91 @@
+package ai;
+
+import common.Code;
+import common.Rng;
+import game.ControlInterface;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*
+ * Tests that one KnuthSolver plays several games, i.e. its candidates are
+ * reset when the game of the control interface is replaced, and plays legal
+ * new codes when the time budget expires.
+ */
+public class KnuthSolverTest {
+
+    private static ControlInterface control() {
+        return control(4, 6, true);
+    }
+
+    private static ControlInterface control(int width, int colQuant,
+                                            boolean doubleCols) {
+        ControlInterface ci = new ControlInterface();
+        ci.setSettingColQuant(colQuant);
+        ci.setSettingWidth(width);
+        ci.setSettingDoubleCols(doubleCols);
+        ci.setSettingMaxTries(20);
+        ci.newGame(new Rng(0));
+        return ci;
+    }
+
+    @Test
+    public void solvesConsecutiveGames() {
+        ControlInterface ci = control();
+        KnuthSolver solver = new KnuthSolver(ci);
+        for (int g = 0; g < 20; g++) {
+            ci.newGame(new Rng(g));
+            int state = 0;
+            while (state == 0) {
+                state = solver.makeGuess();
+            }
+            assertEquals(1, state);
+            // Knuth's strategy needs at most 5 guesses for 4 positions, 6 colors
+            assertTrue(ci.getActiveRowNumber() <= 5);
+        }
+    }
+
+    @Test
+    public void solvesGameReplacedWhilePlaying() {
+        ControlInterface ci = control();
+        KnuthSolver solver = new KnuthSolver(ci);
+        for (int g = 0; g < 10; g++) {
+            ci.newGame(new Rng(g));
+            // Play part of a game, then start the next one
+            solver.makeGuess();
+            solver.makeGuess();
+            ci.newGame(new Rng(100 + g));
+            int state = 0;
+            while (state == 0) {
+                state = solver.makeGuess();
+            }
+            assertEquals(1, state);
+            // Candidates left over from the replaced game would exclude the
+            // secret code or need more guesses
+            assertTrue(ci.getActiveRowNumber() <= 5);
+        }
+    }
+
+    @Test
+    public void expiredScanPlaysLegalCode() {
+        // No feedback table, the scan starts with codes with duplicate colors
+        ControlInterface ci = control(8, 8, false);
+        KnuthSolver solver = new KnuthSolver(ci);
+        solver.makeGuess();
+        for (int n = 0; n < 3; n++) {
+            Guess guess = solver.generateGuess(Duration.ZERO);
+            int code = Code.of(guess.getRow());
+            assertFalse(Code.containsDoubleCols(code, 8));
+            for (int r = 0; r < ci.getActiveRowNumber(); r++) {
+                assertFalse(code == Code.of(ci.getGameFieldRow(r)));
+            }
+            ci.writeToGameField(guess.getRow().getColors());
+            ci.turn();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ai;
+
+import common.Rng;
+import game.ControlInterface;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*
+ * Tests that a Simulation plays every game once and that a seeded
+ * simulation plays the same games whatever the thread scheduling.
+ */
+public class SimulationTest {
+
+    private static ControlInterface settings() {
+        ControlInterface ci = new ControlInterface();
+        ci.setSettingColQuant(6);
+        ci.setSettingWidth(4);
+        ci.setSettingDoubleCols(true);
+        ci.setSettingMaxTries(20);
+        return ci;
+    }
+
+    // Plays the games and returns the number of tries by game number
+    private static int[] tries(ForkJoinPool pool, int games, long seed) {
+        List<GameResult> results = new ArrayList<>();
+        new Simulation(settings(), (ci, rnd) -> new KnuthSolver(ci), pool,
+                new Rng(seed)).run(games, results::add);
+        assertEquals(games, results.size());
+        int[] tries = new int[games];
+        for (GameResult result : results) {
+            // Every game is reported once
+            assertEquals(0, tries[result.getGame()]);
+            assertTrue(result.isWon());
+            tries[result.getGame()] = result.getTries();
+        }
+        return tries;
+    }
+
+    @Test
+    public void playsEveryGameOnce() {
+        for (int games : new int[] {1, 7, 100}) {
+            tries(ForkJoinPool.commonPool(), games, 1);
+        }
+    }
+
+    @Test
+    public void sameGamesForASeed() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        int[] tries = tries(pool, 200, 2);
+        for (int n = 0; n < 3; n++) {
+            assertArrayEquals(tries, tries(pool, 200, 2));
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void noGames() {
+        new Simulation(settings(), (ci, rnd) -> new KnuthSolver(ci),
+                ForkJoinPool.commonPool(), new Rng(3)).run(0, result -> {
+                    throw new AssertionError("No game expected");
+                });
+    }
+}
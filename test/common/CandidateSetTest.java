@@ -0,0 +1,115 @@
+package common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+
+/*
+ * Tests CandidateSet against scoring every code of the code space.
+ */
+public class CandidateSetTest {
+
+    @Test
+    public void createContainsAllCodes() {
+        assertEquals(1296, CandidateSet.create(4, 6, true).size());
+        // 6 * 5 * 4 * 3 codes without duplicate colors
+        CandidateSet set = CandidateSet.create(4, 6, false);
+        assertEquals(360, set.size());
+        for (int i = 0; i < 1296; i++) {
+            int code = Code.fromIndex(i, 4, 6);
+            assertEquals(Code.containsDoubleCols(code, 4) == false,
+                    set.contains(code));
+        }
+    }
+
+    @Test
+    public void tooLargeSpace() {
+        assertNull(CandidateSet.create(8, 10, true));
+    }
+
+    @Test
+    public void filterKeepsConsistentCodes() {
+        for (boolean doubleCols : new boolean[] {true, false}) {
+            Rng rnd = new Rng(3);
+            CandidateSet set = CandidateSet.create(5, 7, doubleCols);
+            int secret = set.get(rnd.nextInt(set.size()));
+            int[] guesses = new int[4];
+            int[] feedbacks = new int[4];
+            for (int r = 0; r < guesses.length; r++) {
+                guesses[r] = Code.fromIndex(
+                        rnd.nextInt((int) Code.spaceSize(5, 7)), 5, 7);
+                feedbacks[r] = Score.compare(guesses[r], secret, 5);
+                set.filter(guesses[r], feedbacks[r]);
+                assertConsistent(set, 5, 7, doubleCols, guesses, feedbacks,
+                        r + 1);
+            }
+            assertEquals(true, set.contains(secret));
+        }
+    }
+
+    @Test
+    public void stepsGiveTheSameSet() {
+        CandidateSet whole = CandidateSet.create(6, 9, false);
+        CandidateSet steps = CandidateSet.allocate(6, 9, false);
+        // Stop after every chunk: the condition is checked before a chunk,
+        // the first check of a call lets it do one
+        int[] checks = {0};
+        BooleanSupplier stop = () -> checks[0]++ % 2 == 1;
+        int word = 0;
+        while (word < steps.words()) {
+            checks[0] = 0;
+            word = steps.init(word, stop);
+        }
+        int guess = Code.fromIndex(12345, 6, 9);
+        int feedback = Code.feedback(1, 2);
+        whole.filter(guess, feedback);
+        word = 0;
+        while (word < steps.words()) {
+            checks[0] = 0;
+            word = steps.filter(guess, feedback, word, stop);
+        }
+        assertEquals(whole.size(), steps.size());
+        for (int n = 0; n < whole.size(); n++) {
+            assertEquals(whole.get(n), steps.get(n));
+        }
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        CandidateSet set = CandidateSet.create(4, 6, true);
+        CandidateSet copy = set.copy();
+        copy.filter(Code.fromIndex(7, 4, 6), Code.feedback(0, 0));
+        assertEquals(1296, set.size());
+        assertEquals(256, copy.size());
+    }
+
+    /*
+     * Check a set against scoring every code of the code space
+     * rows - the number of results in guesses and feedbacks
+     */
+    private static void assertConsistent(CandidateSet set, int width,
+                                         int colQuant, boolean doubleCols,
+                                         int[] guesses, int[] feedbacks,
+                                         int rows) {
+        int count = 0;
+        int size = (int) Code.spaceSize(width, colQuant);
+        for (int i = 0; i < size; i++) {
+            int code = Code.fromIndex(i, width, colQuant);
+            boolean expected = doubleCols
+                    || Code.containsDoubleCols(code, width) == false;
+            for (int r = 0; r < rows && expected == true; r++) {
+                expected = Score.compare(guesses[r], code, width)
+                        == feedbacks[r];
+            }
+            assertEquals(expected, set.contains(code));
+            if (expected == true) {
+                count++;
+            }
+        }
+        assertEquals(count, set.size());
+    }
+}
@@ -0,0 +1,102 @@
+package common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/*
+ * Tests packing rows and results into ints and the index order of packed
+ * codes, see Code.index(int, int, int), Code.fromIndex(int, int, int) and
+ * Code.next(int, int, int).
+ */
+public class CodeTest {
+
+    @Test
+    public void rowRoundTrip() {
+        Color[] colors = Color.values();
+        for (int width = 1; width <= Code.MAX_WIDTH; width++) {
+            Color[] row = new Color[width];
+            for (int i = 0; i < width; i++) {
+                row[i] = colors[(i * 7 + width) % 10];
+            }
+            int code = Code.of(new Row(row));
+            assertEquals(new Row(row), Code.toRow(code, width));
+            for (int i = 0; i < width; i++) {
+                assertEquals(row[i].ordinal(), Code.get(code, i));
+            }
+        }
+    }
+
+    @Test
+    public void setReplacesOnePosition() {
+        int code = Code.of(new Color[] {Color.Yellow, Color.Pink,
+                Color.Orange, Color.Olive});
+        code = Code.set(code, 1, Color.LightBlue.ordinal());
+        assertEquals(Code.of(new Color[] {Color.Yellow, Color.LightBlue,
+                Color.Orange, Color.Olive}), code);
+        // The highest position of a full width code
+        code = Code.set(0, Code.MAX_WIDTH - 1, Color.Pink.ordinal());
+        assertEquals(Color.Pink.ordinal(), Code.get(code, Code.MAX_WIDTH - 1));
+        assertEquals(0, Code.get(code, Code.MAX_WIDTH - 2));
+    }
+
+    @Test
+    public void feedbackRoundTrip() {
+        for (int width = 1; width <= Code.MAX_WIDTH; width++) {
+            for (int blacks = 0; blacks <= width; blacks++) {
+                for (int whites = 0; blacks + whites <= width; whites++) {
+                    int feedback = Code.feedback(blacks, whites);
+                    assertEquals(blacks, Code.blacks(feedback));
+                    assertEquals(whites, Code.whites(feedback));
+                    Row result = Code.toResultRow(feedback, width);
+                    assertEquals(blacks, result.containsCol(Color.Black));
+                    assertEquals(whites, result.containsCol(Color.White));
+                    assertEquals(feedback, Code.feedback(result));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void indexRoundTrip() {
+        int[][] spaces = {{1, 2}, {4, 6}, {5, 8}, {3, 10}};
+        for (int[] space : spaces) {
+            int width = space[0];
+            int colQuant = space[1];
+            int size = (int) Code.spaceSize(width, colQuant);
+            for (int i = 0; i < size; i++) {
+                int code = Code.fromIndex(i, width, colQuant);
+                assertEquals(i, Code.index(code, width, colQuant));
+            }
+        }
+    }
+
+    @Test
+    public void indexRoundTripLargeSpace() {
+        Rng rnd = new Rng(1);
+        int size = (int) Code.spaceSize(8, 8);
+        for (int n = 0; n < 100000; n++) {
+            int i = rnd.nextInt(size);
+            assertEquals(i, Code.index(Code.fromIndex(i, 8, 8), 8, 8));
+        }
+    }
+
+    @Test
+    public void nextFollowsIndexOrder() {
+        int size = (int) Code.spaceSize(4, 6);
+        int code = 0;
+        for (int i = 0; i < size; i++) {
+            assertEquals(Code.fromIndex(i, 4, 6), code);
+            code = Code.next(code, 4, 6);
+        }
+        // Wraps around to the first code after the last one
+        assertEquals(0, code);
+    }
+
+    @Test
+    public void indexOfInvalidColor() {
+        int code = Code.set(0, 2, 6);
+        assertEquals(-1, Code.index(code, 4, 6));
+    }
+}
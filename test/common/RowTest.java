@@ -0,0 +1,46 @@
+package common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+
+/*
+ * Tests Row.equals(Object) and Row.hashCode(), also of a Row without colors.
+ */
+public class RowTest {
+
+    @Test
+    public void equalRowsHaveEqualHashCodes() {
+        Row row = new Row(new Color[] {Color.Yellow, Color.Pink, Color.Null});
+        Row same = new Row(new Color[] {Color.Yellow, Color.Pink, Color.Null});
+        assertEquals(row, same);
+        assertEquals(row.hashCode(), same.hashCode());
+        assertEquals(new Row(4), new Row(4));
+        assertEquals(new Row(4).hashCode(), new Row(4).hashCode());
+    }
+
+    @Test
+    public void differentRows() {
+        Row row = new Row(new Color[] {Color.Yellow, Color.Pink});
+        assertFalse(row.equals(new Row(new Color[] {Color.Pink, Color.Yellow})));
+        // A prefix is not equal
+        assertFalse(row.equals(new Row(new Color[] {Color.Yellow})));
+        assertFalse(row.equals(new Row(new Color[] {Color.Yellow, Color.Pink,
+                Color.Yellow})));
+        assertFalse(row.equals(null));
+        assertFalse(row.hashCode()
+                == new Row(new Color[] {Color.Pink, Color.Yellow}).hashCode());
+    }
+
+    @Test
+    public void rowWithoutColors() {
+        Row row = new Row((Color[]) null);
+        assertEquals(0, row.hashCode());
+        assertEquals(row, new Row((Color[]) null));
+        assertFalse(row.equals(new Row(4)));
+        assertFalse(new Row(4).equals(row));
+        assertEquals("no colors", row.toString());
+    }
+}
@@ -0,0 +1,82 @@
+package common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/*
+ * Tests Score.compare(int, int, int) against the scoring of rows the game
+ * used before the packed codes, see oldScore(Color[], Color[]).
+ */
+public class ScoreTest {
+
+    @Test
+    public void allPairsOfSmallSpace() {
+        int size = (int) Code.spaceSize(4, 6);
+        for (int i = 0; i < size; i++) {
+            int guess = Code.fromIndex(i, 4, 6);
+            for (int j = 0; j < size; j++) {
+                int secret = Code.fromIndex(j, 4, 6);
+                assertEquals(oldScore(guess, secret, 4),
+                        Score.compare(guess, secret, 4));
+            }
+        }
+    }
+
+    @Test
+    public void randomPairsOfLargeSpaces() {
+        Rng rnd = new Rng(2);
+        int[][] spaces = {{8, 10}, {6, 9}, {5, 3}, {1, 10}};
+        for (int[] space : spaces) {
+            int width = space[0];
+            int colQuant = space[1];
+            for (int n = 0; n < 20000; n++) {
+                int guess = randomCode(rnd, width, colQuant);
+                int secret = randomCode(rnd, width, colQuant);
+                assertEquals(oldScore(guess, secret, width),
+                        Score.compare(guess, secret, width));
+            }
+        }
+    }
+
+    private static int randomCode(Rng rnd, int width, int colQuant) {
+        int code = 0;
+        for (int i = 0; i < width; i++) {
+            code = Code.set(code, i, rnd.nextInt(colQuant));
+        }
+        return code;
+    }
+
+    /*
+     * The scoring of the game before the packed codes (Game.checkActiveRow)
+     * First the right colors at the right positions (black), then the right
+     * colors at wrong positions (white), every peg is counted once.
+     * return: the packed feedback, see Code.feedback(int, int)
+     */
+    private static int oldScore(int guess, int secret, int width) {
+        Color[] row = Code.toRow(guess, width).getColors().clone();
+        Color[] secretRow = Code.toRow(secret, width).getColors().clone();
+        int blacks = 0;
+        int whites = 0;
+        for (int i = 0; i < width; i++) {
+            if (row[i] == secretRow[i]) {
+                blacks++;
+                secretRow[i] = null;
+                row[i] = null;
+            }
+        }
+        outer: for (int i = 0; i < width; i++) {
+            if (row[i] != null) {
+                for (int j = 0; j < width; j++) {
+                    if (secretRow[j] != null && row[i] == secretRow[j]) {
+                        whites++;
+                        secretRow[j] = null;
+                        continue outer;
+                    }
+                }
+            }
+        }
+        return Code.feedback(blacks, whites);
+    }
+}
@@ -0,0 +1,62 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+
+/*
+ * Tests loading and saving games, see ControlInterface.load(String).
+ */
+public class ControlInterfaceTest {
+
+    /*
+     * first_version.mm was saved by the first version of the game:
+     * 5 positions, 7 colors, one row played, no AI settings
+     */
+    @Test
+    public void loadsSaveOfFirstVersion() throws Exception {
+        ControlInterface ci = new ControlInterface();
+        ci.load(Paths.get(getClass().getResource("first_version.mm").toURI())
+                .toString());
+        assertEquals(5, ci.getSettingWidth());
+        assertEquals(7, ci.getSettingColQuant());
+        assertEquals(1, ci.getActiveRowNumber());
+        assertFalse(ci.getGameEnded());
+        assertEquals("LightBlue, Yellow, LightGreen, LightPurple, Orange",
+                ci.getSecretCode().toString());
+        assertEquals("Black, White, White, Null, Null",
+                ci.getResultRow(0).toString());
+        // The AI settings it doesn't contain have their defaults
+        assertEquals(2000, ci.getSettingAiPopulationSize());
+        assertEquals(500, ci.getSettingAiGenerations());
+        assertEquals(1, ci.getSettingAiFeasibleCodesMax());
+        assertFalse(ci.getSettingAiAdaptive());
+        assertEquals(2000, ci.getSettingAiTimeBudget());
+    }
+
+    @Test
+    public void savedGameLoadsAgain() throws Exception {
+        ControlInterface ci = new ControlInterface();
+        ci.setSettingAiTimeBudget(500);
+        ci.newGame();
+        ci.writeToGameField(ci.getSecretCode().getColors());
+        ci.turn();
+        File file = File.createTempFile("mastermind", "." + ci.FILE_EXTENSION);
+        try {
+            ci.save(file.getPath());
+            ControlInterface loaded = new ControlInterface();
+            loaded.load(file.getPath());
+            assertEquals(ci.getSecretCode(), loaded.getSecretCode());
+            assertEquals(1, loaded.getActiveRowNumber());
+            assertEquals(true, loaded.getGameEnded());
+            assertEquals(500, loaded.getSettingAiTimeBudget());
+        } finally {
+            file.delete();
+        }
+    }
+}
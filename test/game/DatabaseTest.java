@@ -0,0 +1,223 @@
+package game;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/*
+ * Tests the write-behind of the score database on a temporary SQLite
+ * database, the scores and leaderboard served from memory, also without
+ * a database, and the statistics of the game history.
+ */
+public class DatabaseTest {
+
+    private Path dir;
+    private String url;
+
+    @BeforeEach
+    public void createDirectory() throws IOException {
+        dir = Files.createTempDirectory("mastermind");
+        url = "jdbc:sqlite:" + dir.resolve("test.db");
+    }
+
+    @AfterEach
+    public void deleteDirectory() {
+        for (File file : dir.toFile().listFiles()) {
+            file.delete();
+        }
+        dir.toFile().delete();
+    }
+
+    // The score of a user written to the database, -1 if there is none
+    private long storedScore(String username) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT guess_score FROM Mastermind WHERE username = ?")) {
+            stmt.setString(1, username);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1;
+            }
+        }
+    }
+
+    @Test
+    public void scoresAreWrittenBehind() throws SQLException {
+        Database db = new Database(url);
+        try {
+            db.createGameEntry("alice");
+            db.incrementGuessScore("alice");
+            db.incrementGuessScore("alice");
+            // Served from memory before they are written
+            assertEquals(2, db.getGuessScore("alice"));
+            db.flush();
+            assertEquals(2, storedScore("alice"));
+            db.incrementGuessScore("alice");
+            db.flush();
+            assertEquals(3, storedScore("alice"));
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test
+    public void thresholdWritesRightAway() throws Exception {
+        Database db = new Database(url);
+        try {
+            // The threshold is reached, so the increments don't wait for
+            // the flush interval
+            for (int i = 0; i < 100; i++) {
+                db.incrementGuessScore("bob");
+            }
+            long end = System.nanoTime() + 900_000_000L;
+            while (storedScore("bob") != 100 && System.nanoTime() < end) {
+                Thread.sleep(10);
+            }
+            assertEquals(100, storedScore("bob"));
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test
+    public void closeWritesPendingScores() throws SQLException {
+        Database db = new Database(url);
+        db.createGameEntry("carol");
+        db.incrementGuessScore("carol");
+        db.createGameEntry("dave");
+        db.close();
+        assertEquals(1, storedScore("carol"));
+        assertEquals(0, storedScore("dave"));
+        // Loaded again by the next instance
+        Database again = new Database(url);
+        try {
+            assertEquals(1, again.getGuessScore("carol"));
+            assertEquals(0, again.getGuessScore("dave"));
+        } finally {
+            again.close();
+        }
+    }
+
+    @Test
+    public void withoutDatabase() {
+        Database db = new Database("jdbc:invalid:");
+        db.createGameEntry("erin");
+        db.incrementGuessScore("erin");
+        db.flush();
+        assertEquals(1, db.getGuessScore("erin"));
+        db.close();
+    }
+
+    @Test
+    public void leaderboardOrder() {
+        Database db = new Database("jdbc:invalid:");
+        String[] users = {"frank", "grace", "heidi", "ivan"};
+        int[] increments = {2, 5, 2, 0};
+        for (int u = 0; u < users.length; u++) {
+            db.createGameEntry(users[u]);
+            for (int i = 0; i < increments[u]; i++) {
+                db.incrementGuessScore(users[u]);
+            }
+        }
+        // An existing entry keeps its score
+        db.createGameEntry("grace");
+        List<LeaderboardEntry> top = db.getLeaderboard(10);
+        assertEquals(4, top.size());
+        // Highest score first, then by username
+        String[] order = {"grace", "frank", "heidi", "ivan"};
+        long[] scores = {5, 2, 2, 0};
+        for (int i = 0; i < order.length; i++) {
+            assertEquals(order[i], top.get(i).getUsername());
+            assertEquals(scores[i], top.get(i).getScore());
+        }
+        assertEquals(2, db.getLeaderboard(2).size());
+        // A changed score moves the user
+        db.incrementGuessScore("ivan");
+        db.incrementGuessScore("ivan");
+        db.incrementGuessScore("ivan");
+        assertEquals("ivan", db.getLeaderboard(2).get(1).getUsername());
+        assertEquals(0, db.getGuessScore("judy"));
+        db.close();
+    }
+
+    @Test
+    public void leaderboardLoadedFromDatabase() {
+        Database db = new Database(url);
+        db.createGameEntry("kim");
+        db.incrementGuessScore("kim");
+        db.createGameEntry("leo");
+        db.close();
+        Database again = new Database(url);
+        try {
+            List<LeaderboardEntry> top = again.getLeaderboard(5);
+            assertEquals(2, top.size());
+            assertEquals(new LeaderboardEntry("kim", 1), top.get(0));
+            assertEquals(new LeaderboardEntry("leo", 0), top.get(1));
+        } finally {
+            again.close();
+        }
+    }
+
+    @Test
+    public void statisticsOfTheGames() {
+        Database db = new Database(url);
+        try {
+            // 10 games with 3 to 12 tries, the last one lost
+            for (int tries = 3; tries <= 12; tries++) {
+                db.recordGame(new GameRecord("mia", 4, 6, true, 12, tries,
+                        tries < 12, (tries - 2) * 100, "GeneticSolver"));
+            }
+            db.recordGame(new GameRecord("ned", 5, 8, false, 12, 6, true, 5000,
+                    "human"));
+            db.recordGame(new GameRecord("ned", 5, 8, false, 12, 8, true, 7000,
+                    "human"));
+            // The pending records are written first
+            List<GameStatistics> all = db.getStatistics();
+            assertEquals(2, all.size());
+            GameStatistics ga = all.get(0);
+            assertEquals("GeneticSolver", ga.getSolver());
+            assertEquals(4, ga.getWidth());
+            assertEquals(6, ga.getColQuant());
+            assertEquals(true, ga.getDoubleCols());
+            assertEquals(12, ga.getMaxTries());
+            assertEquals(10, ga.getGames());
+            assertEquals(0.9, ga.getWinRate(), 1e-9);
+            assertEquals(7.5, ga.getAverageTries(), 1e-9);
+            // Nearest rank: the 5th and the 9th of 10 games
+            assertEquals(7, ga.getMedianTries());
+            assertEquals(11, ga.getP90Tries());
+            assertEquals(550, ga.getAverageDurationMillis(), 1e-9);
+
+            List<GameStatistics> ned = db.getStatistics("ned");
+            assertEquals(1, ned.size());
+            assertEquals("human", ned.get(0).getSolver());
+            assertEquals(2, ned.get(0).getGames());
+            assertEquals(6, ned.get(0).getMedianTries());
+            assertEquals(8, ned.get(0).getP90Tries());
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test
+    public void noStatisticsWithoutDatabase() {
+        Database db = new Database("jdbc:invalid:");
+        db.recordGame(new GameRecord("olga", 4, 6, true, 12, 5, true, 100,
+                "human"));
+        assertEquals(0, db.getStatistics().size());
+        db.close();
+    }
+}
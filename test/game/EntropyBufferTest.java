@@ -0,0 +1,159 @@
+package game;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*
+ * Tests EntropyBuffer and HTTPUtils against a local stand-in for the
+ * random.org integer generator.
+ * The server answers every request with the next numbers of a counter
+ * (0, 1, 2, ...), unless a test queued a different answer, see Answer.
+ */
+public class EntropyBufferTest {
+
+    // Answers of the stand-in server
+    private enum Answer { NUMBERS, BUSY, ERROR, STALL }
+
+    private static final int BATCH_SIZE = 8;
+
+    private HttpServer server;
+    private String baseUrl;
+    private HTTPUtils client;
+
+    // Answers for the next requests, NUMBERS if empty
+    private final ConcurrentLinkedQueue<Answer> answers =
+            new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/integers/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        client = new HTTPUtils(Duration.ofSeconds(1), Duration.ofMillis(500),
+                2, Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        Answer answer = answers.poll();
+        if (answer == null) {
+            answer = Answer.NUMBERS;
+        }
+        try (OutputStream out = exchange.getResponseBody()) {
+            switch (answer) {
+                case BUSY:
+                    exchange.getResponseHeaders().add("Retry-After", "1");
+                    send(exchange, 503, "Busy");
+                    break;
+                case ERROR:
+                    send(exchange, 500, "Error: Internal error");
+                    break;
+                case STALL:
+                    // Start the body, but never finish it in time
+                    exchange.sendResponseHeaders(200, 0);
+                    out.write("1\n2\n".getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                    sleep(3000);
+                    break;
+                default:
+                    StringBuilder body = new StringBuilder();
+                    for (int i = 0; i < BATCH_SIZE; i++) {
+                        body.append(counter.getAndIncrement()).append('\n');
+                    }
+                    send(exchange, 200, body.toString());
+            }
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void refillsInTheBackground() throws IOException {
+        EntropyBuffer buffer = new EntropyBuffer(baseUrl, BATCH_SIZE, client);
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5, 6}, buffer.take(7));
+        // One number left, below the low water mark: the next batch is
+        // fetched and appended to it
+        assertArrayEquals(new int[] {7, 8, 9}, buffer.take(3));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void retriesBusyServer() throws IOException {
+        answers.add(Answer.BUSY);
+        long start = System.nanoTime();
+        EntropyBuffer buffer = new EntropyBuffer(baseUrl, BATCH_SIZE, client);
+        assertArrayEquals(new int[] {0, 1, 2, 3}, buffer.take(4));
+        // The server asked for a retry after a second, which is capped at
+        // the request timeout
+        long elapsed = System.nanoTime() - start;
+        assertTrue(elapsed >= 450_000_000L && elapsed < 900_000_000L);
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void stalledResponseTimesOut() {
+        answers.add(Answer.STALL);
+        long start = System.nanoTime();
+        EntropyBuffer buffer = new EntropyBuffer(baseUrl, BATCH_SIZE, client);
+        assertThrows(IOException.class, () -> buffer.take(4));
+        // The request timeout ends the exchange, not the stalled body
+        assertTrue(System.nanoTime() - start < 1_500_000_000L);
+    }
+
+    @Test
+    public void failedRefillWithNumbersLeft() throws IOException {
+        EntropyBuffer buffer = new EntropyBuffer(baseUrl, BATCH_SIZE, client);
+        buffer.take(6);
+        answers.add(Answer.ERROR);
+        // Leaves one number and starts a refill, which fails
+        buffer.take(1);
+        sleep(200);
+        // The buffered number is still served, and the low water check
+        // starts the next refill
+        assertArrayEquals(new int[] {7}, buffer.take(1));
+        assertArrayEquals(new int[] {8, 9}, buffer.take(2));
+        assertEquals(3, requests.get());
+    }
+}
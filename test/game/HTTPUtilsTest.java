@@ -0,0 +1,179 @@
+package game;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*
+ * Tests the parsing, timeouts and retries of HTTPUtils against a local
+ * server.
+ */
+public class HTTPUtilsTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private HTTPUtils client;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        client = new HTTPUtils(Duration.ofSeconds(1), Duration.ofMillis(500),
+                2, Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    // Serve a path, counting the requests
+    private String serve(String path, HttpHandler handler) {
+        server.createContext(path, exchange -> {
+            requests.incrementAndGet();
+            try (OutputStream out = exchange.getResponseBody()) {
+                handler.handle(exchange);
+            }
+        });
+        return baseUrl + path;
+    }
+
+    // Serve a 503 with a Retry-After header once, then numbers
+    private String serveBusy(String retryAfter) {
+        return serve("/busy", exchange -> {
+            if (requests.get() == 1) {
+                exchange.getResponseHeaders().add("Retry-After", retryAfter);
+                send(exchange, 503, "Busy");
+            } else {
+                send(exchange, 200, "1\n2\n");
+            }
+        });
+    }
+
+    private static void send(HttpExchange exchange, int status, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void parsesBodySentInPieces() throws IOException {
+        String url = serve("/pieces", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            for (String piece : new String[] {"1", "2\n3", "4 ", "\t5\r\n6\n7"}) {
+                out.write(piece.getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                sleep(20);
+            }
+        });
+        assertArrayEquals(new int[] {12, 34, 5, 6, 7}, client.getInts(url, 5));
+        // Numbers after the expected ones are skipped
+        assertArrayEquals(new int[] {12, 34}, client.getInts(url, 2));
+    }
+
+    @Test
+    public void invalidBodiesFail() {
+        String fewer = serve("/fewer", exchange -> send(exchange, 200, "1\n2\n"));
+        String invalid = serve("/invalid", exchange -> send(exchange, 200, "1\nx\n"));
+        String large = serve("/large", exchange -> send(exchange, 200, "4294967296\n"));
+        assertThrows(IOException.class, () -> client.getInts(fewer, 3));
+        assertThrows(IOException.class, () -> client.getInts(invalid, 2));
+        assertThrows(IOException.class, () -> client.getInts(large, 1));
+    }
+
+    @Test
+    public void errorReportsFirstLine() {
+        String url = serve("/error", exchange ->
+                send(exchange, 500, "Error: Internal error\nmore\n"));
+        IOException e = assertThrows(IOException.class,
+                () -> client.getInts(url, 2));
+        assertTrue(e.getMessage().endsWith(": Error: Internal error"));
+    }
+
+    @Test
+    public void stalledBodyEndsTheExchange() throws InterruptedException {
+        CountDownLatch closed = new CountDownLatch(1);
+        String url = serve("/stall", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            // Keep the body going slowly until the client hangs up
+            try {
+                for (int i = 0; i < 100; i++) {
+                    out.write('1');
+                    out.flush();
+                    sleep(50);
+                }
+            } catch (IOException e) {
+                closed.countDown();
+            }
+        });
+        long start = System.nanoTime();
+        assertThrows(IOException.class, () -> client.getInts(url, 2));
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        // The connection is closed, the server doesn't send for 5 seconds
+        assertTrue(closed.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void retryAfterIsCapped() throws IOException {
+        String url = serveBusy("60");
+        long start = System.nanoTime();
+        assertArrayEquals(new int[] {1, 2}, client.getInts(url, 2));
+        // Waits the request timeout instead of a minute
+        assertTrue(System.nanoTime() - start < 1_500_000_000L);
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void retryAfterDate() throws IOException {
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                ZonedDateTime.now(ZoneOffset.UTC).minusSeconds(10));
+        String url = serveBusy(date);
+        assertArrayEquals(new int[] {1, 2}, client.getInts(url, 2));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void invalidRetryAfterUsesBackoff() throws IOException {
+        String url = serveBusy("soon");
+        assertArrayEquals(new int[] {1, 2}, client.getInts(url, 2));
+        assertEquals(2, requests.get());
+    }
+}
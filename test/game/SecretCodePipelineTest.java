@@ -0,0 +1,43 @@
+package game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*
+ * Tests that a new game doesn't wait for a slow source of secret codes,
+ * see SecretCodePipeline.
+ */
+public class SecretCodePipelineTest {
+
+    @Test
+    public void newGameDoesNotWaitForSlowSource() throws Exception {
+        ControlInterface ci = new ControlInterface();
+        CountDownLatch release = new CountDownLatch(1);
+        SecretCodeSource old = ControlInterface.getSecretCodeSource();
+        ControlInterface.setSecretCodeSource((width, colQuant, duplicates) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new int[width];
+        });
+        try {
+            long start = System.nanoTime();
+            ci.newGame();
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            assertTrue(elapsed < SecretCodePipeline.WAIT_MILLIS + 1000,
+                    "took " + elapsed + " ms");
+            assertEquals(ci.getSettingWidth(),
+                    ci.getSecretCode().getColors().length);
+        } finally {
+            ControlInterface.setSecretCodeSource(old);
+            release.countDown();
+        }
+    }
+}